@@ -23,7 +23,8 @@ public class CacheConfig {
                 "user-recommendations",
                 "movie-details",
                 "similar-movies",
-                "user-vector-recommendations"
+                "user-vector-recommendations",
+                "movie-suggestions"
         );
 
         cacheManager.setCaffeine(Caffeine.newBuilder()
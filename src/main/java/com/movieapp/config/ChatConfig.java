@@ -0,0 +1,94 @@
+package com.movieapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ChatConfig {
+
+    /**
+     * Executor for streaming chat generations (keeps request threads free while tokens stream)
+     * One virtual thread per stream when spring.threads.virtual.enabled, otherwise a bounded platform pool.
+     * Further submissions are rejected once the limit is reached.
+     */
+    @Bean(name = "chatStreamExecutor")
+    public AsyncTaskExecutor chatStreamExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${chat.stream.max-concurrent:2000}") int maxConcurrent,
+            @Value("${chat.stream.platform-pool-size:20}") int platformPoolSize,
+            @Value("${chat.stream.queue-capacity:50}") int queueCapacity) {
+
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("chat-stream-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(maxConcurrent);
+            executor.setRejectTasksWhenLimitReached(true);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(platformPoolSize);
+        executor.setMaxPoolSize(platformPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("chat-stream-");
+        return executor;
+    }
+
+    /**
+     * Workers for asynchronous chat jobs (/api/chat/send?async=true)
+     * Same shape as the stream executor; submissions beyond the limit are rejected (HTTP 429).
+     */
+    @Bean(name = "chatJobExecutor")
+    public AsyncTaskExecutor chatJobExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${chat.jobs.max-concurrent:500}") int maxConcurrent,
+            @Value("${chat.jobs.platform-pool-size:10}") int platformPoolSize,
+            @Value("${chat.jobs.queue-capacity:100}") int queueCapacity) {
+
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("chat-job-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(maxConcurrent);
+            executor.setRejectTasksWhenLimitReached(true);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(platformPoolSize);
+        executor.setMaxPoolSize(platformPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("chat-job-");
+        return executor;
+    }
+
+    /**
+     * Runs the independent RAG retrieval steps of one chat turn in parallel (history load next to the query embedding)
+     * Tasks are short and bounded by the DB pool and the Ollama limiter, so nothing is rejected:
+     * on a full platform pool the caller runs the task itself.
+     */
+    @Bean(name = "chatRetrievalExecutor")
+    public AsyncTaskExecutor chatRetrievalExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${chat.retrieval.platform-pool-size:16}") int platformPoolSize) {
+
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("chat-retrieval-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(platformPoolSize);
+        executor.setMaxPoolSize(platformPoolSize);
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("chat-retrieval-");
+        return executor;
+    }
+}
@@ -0,0 +1,47 @@
+package com.movieapp.config;
+
+import com.movieapp.util.AdaptiveConcurrencyLimiter;
+import com.movieapp.util.Bulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Per-downstream concurrency limits for blocking remote I/O
+ */
+@Configuration
+public class DownstreamConfig {
+
+    /**
+     * Ollama gets an adaptive limit and a priority queue instead of a fixed bulkhead:
+     * its capacity depends on the model and hardware, and chat must overtake embedding backfill
+     */
+    @Bean(name = "ollamaLimiter")
+    public AdaptiveConcurrencyLimiter ollamaLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${downstream.ollama.initial-limit:2}") int initialLimit,
+            @Value("${downstream.ollama.min-limit:1}") int minLimit,
+            @Value("${downstream.ollama.max-limit:8}") int maxLimit,
+            @Value("${downstream.ollama.queue-capacity:100}") int queueCapacity,
+            @Value("${downstream.ollama.max-wait-ms:60000}") long maxWaitMs,
+            @Value("${downstream.ollama.latency-tolerance:3.0}") double latencyTolerance,
+            @Value("${downstream.ollama.backoff-ratio:0.9}") double backoffRatio) {
+        return new AdaptiveConcurrencyLimiter("ollama", initialLimit, minLimit, maxLimit,
+                queueCapacity, maxWaitMs, latencyTolerance, backoffRatio, meterRegistry);
+    }
+
+    @Bean(name = "tmdbBulkhead")
+    public Bulkhead tmdbBulkhead(
+            @Value("${downstream.tmdb.max-concurrent:8}") int maxConcurrent,
+            @Value("${downstream.tmdb.acquire-timeout-ms:10000}") long acquireTimeoutMs) {
+        return new Bulkhead("tmdb", maxConcurrent, acquireTimeoutMs);
+    }
+
+    @Bean(name = "googleBulkhead")
+    public Bulkhead googleBulkhead(
+            @Value("${downstream.google.max-concurrent:16}") int maxConcurrent,
+            @Value("${downstream.google.acquire-timeout-ms:5000}") long acquireTimeoutMs) {
+        return new Bulkhead("google", maxConcurrent, acquireTimeoutMs);
+    }
+}
@@ -1,17 +1,26 @@
 package com.movieapp.controller;
 
+import com.movieapp.dto.ChatJobDTO;
 import com.movieapp.dto.ChatMessageDTO;
 import com.movieapp.dto.ChatRequest;
 import com.movieapp.dto.ConversationHistoryDTO;
 import com.movieapp.entity.User;
+import com.movieapp.service.ChatJobService;
 import com.movieapp.service.ChatManagementService;
 import com.movieapp.service.MovieChatService;
+import com.movieapp.util.LlmBudgetLimiter;
 import com.movieapp.util.RateLimiter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @RestController
@@ -21,35 +30,116 @@ public class ChatController {
 
     private final MovieChatService chatService;
     private final ChatManagementService managementService;
+    private final ChatJobService jobService;
     private final RateLimiter rateLimiter;
+    private final LlmBudgetLimiter llmBudgetLimiter;
 
     /**
      * Send a chat message to your Movie Mentor
+     * With ?async=true the reply is generated in the background: 202 with a job to poll at /api/chat/jobs/{jobId}
      */
     @PostMapping("/send")
-    public ResponseEntity<ChatMessageDTO> sendMessage(
+    public ResponseEntity<?> sendMessage(
+            @AuthenticationPrincipal User user,
+            @Valid @RequestBody ChatRequest request,
+            @RequestParam(defaultValue = "false") boolean async) {
+
+        rateLimiter.checkRateLimit("user:" + user.getId());
+        LlmBudgetLimiter.Reservation budget = llmBudgetLimiter.reserve("user:" + user.getId());
+
+        if (async) {
+            ChatJobDTO job = jobService.submit(user.getId(), request.getMessage(), budget);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/chat/jobs/" + job.getJobId()))
+                    .headers(budgetHeaders(budget))
+                    .body(job);
+        }
+
+        ChatMessageDTO response;
+        try {
+            response = chatService.chat(
+                    user.getId(),
+                    request.getMessage(),
+                    budget
+            );
+        } finally {
+            budget.settle();
+        }
+
+        return ResponseEntity.ok()
+                .headers(budgetHeaders(budget))
+                .body(response);
+    }
+
+    /**
+     * Poll an async chat job; waitSeconds (max 30) holds the request until the job finishes (long-poll)
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ChatJobDTO> getJob(
+            @AuthenticationPrincipal User user,
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "0") long waitSeconds) {
+
+        return jobService.getJob(user.getId(), jobId, waitSeconds)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Cancel an async chat job (aborts the generation if it is already running)
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<ChatJobDTO> cancelJob(
+            @AuthenticationPrincipal User user,
+            @PathVariable String jobId) {
+
+        return jobService.cancel(user.getId(), jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Send a chat message and stream the reply as Server-Sent Events
+     * Events: "token" per content chunk, then "done" with the saved message (or "error")
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMessage(
             @AuthenticationPrincipal User user,
             @Valid @RequestBody ChatRequest request) {
 
         rateLimiter.checkRateLimit("user:" + user.getId());
+        LlmBudgetLimiter.Reservation budget = llmBudgetLimiter.reserve("user:" + user.getId());
 
-        ChatMessageDTO response = chatService.chat(
-                user.getId(),
-                request.getMessage()
-        );
+        return ResponseEntity.ok()
+                .headers(budgetHeaders(budget))
+                .body(chatService.chatStream(user.getId(), request.getMessage(), budget));
+    }
 
-        return ResponseEntity.ok(response);
+    /**
+     * LLM token budget headers; while the reply is still being generated (stream, async job)
+     * Remaining excludes the whole reservation, unused tokens flow back once the reply is done
+     */
+    private HttpHeaders budgetHeaders(LlmBudgetLimiter.Reservation budget) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-RateLimit-LLM-Limit", String.valueOf(llmBudgetLimiter.getCapacity()));
+        headers.set("X-RateLimit-LLM-Remaining", String.valueOf(budget.getRemaining()));
+        headers.set("X-RateLimit-LLM-Reserved", String.valueOf(budget.getReserved()));
+        return headers;
     }
 
     /**
-     * Get full conversation history with your mentor
+     * Get conversation history with your mentor, one page at a time (newest page first)
+     * Pass the returned nextBefore and nextBeforeId as ?before=&beforeId= to load older messages
      */
     @GetMapping("/history")
     public ResponseEntity<ConversationHistoryDTO> getHistory(
-            @AuthenticationPrincipal User user) {
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") int size) {
 
         ConversationHistoryDTO history = managementService
-                .getUserConversationHistory(user.getId());
+                .getUserConversationHistory(user.getId(), before, beforeId, size);
 
         return ResponseEntity.ok(history);
     }
@@ -82,6 +172,19 @@ public class ChatController {
         ));
     }
 
+    /**
+     * Opt out of (or back into) answers shared through the semantic response cache
+     */
+    @PutMapping("/preferences/response-cache")
+    public ResponseEntity<Map<String, Object>> setResponseCacheOptOut(
+            @AuthenticationPrincipal User user,
+            @RequestParam boolean optOut) {
+
+        managementService.setResponseCacheOptOut(user.getId(), optOut);
+
+        return ResponseEntity.ok(Map.of("responseCacheOptOut", optOut));
+    }
+
     /**
      * Get conversation statistics
      */
@@ -1,9 +1,11 @@
 package com.movieapp.controller;
 
+import com.movieapp.dto.MovieSuggestionDTO;
 import com.movieapp.dto.VectorSimilarityResult;
 import com.movieapp.entity.Movie;
 import com.movieapp.repository.MovieRepository;
 import com.movieapp.service.MovieEmbeddingService;
+import com.movieapp.service.MovieSuggestionService;
 import com.movieapp.service.VectorSearchService;
 import com.movieapp.util.RateLimiter;
 import com.movieapp.dto.MovieDTO;
@@ -28,6 +30,7 @@ public class MovieController {
     private final MovieEmbeddingService embeddingService;
     private final MovieRepository movieRepository;
     private final VectorSearchService vectorSearchService;
+    private final MovieSuggestionService suggestionService;
     private final RateLimiter rateLimiter;
 
     @PostMapping("/{id}")
@@ -94,6 +97,25 @@ public class MovieController {
         return ResponseEntity.ok(results);
     }
 
+    /**
+     * Title typeahead - lightweight (id, title, year, poster) suggestions
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<MovieSuggestionDTO>> suggestMovies(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit,
+            @AuthenticationPrincipal User user) {
+
+        if (user != null) {
+            rateLimiter.checkRateLimit("user:" + user.getId());
+        } else {
+            rateLimiter.checkRateLimit("anonymous");
+        }
+
+        List<MovieSuggestionDTO> suggestions = suggestionService.suggest(query, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+
     /**
      * Semantic search - find movies by meaning, not just keywords
      */
@@ -0,0 +1,83 @@
+package com.movieapp.controller;
+
+import com.movieapp.dto.VectorIndexReportDTO;
+import com.movieapp.service.VectorIndexService;
+import com.movieapp.service.VectorIndexService.IndexTarget;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/admin/vector-index")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class VectorIndexController {
+
+    private final VectorIndexService vectorIndexService;
+
+    /**
+     * Get current HNSW index definitions
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, String>> getIndexDefinitions() {
+        Map<String, String> definitions = new LinkedHashMap<>();
+        for (IndexTarget target : IndexTarget.values()) {
+            definitions.put(target.getIndexName(), vectorIndexService.getIndexDefinition(target));
+        }
+        return ResponseEntity.ok(definitions);
+    }
+
+    /**
+     * Rebuild an HNSW index concurrently with new m / ef_construction
+     */
+    @PostMapping("/{target}/rebuild")
+    public ResponseEntity<VectorIndexReportDTO> rebuildIndex(
+            @PathVariable String target,
+            @RequestParam(defaultValue = "16") int m,
+            @RequestParam(defaultValue = "64") int efConstruction) {
+
+        VectorIndexReportDTO report = vectorIndexService.rebuildIndex(
+                parseTarget(target), m, efConstruction);
+
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Report recall vs latency for a range of ef_search values against exact search
+     */
+    @GetMapping("/{target}/benchmark")
+    public ResponseEntity<VectorIndexReportDTO> benchmarkIndex(
+            @PathVariable String target,
+            @RequestParam(defaultValue = "50") int sampleSize,
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(defaultValue = "20,40,100,200") List<Integer> efSearch) {
+
+        VectorIndexReportDTO report = vectorIndexService.benchmarkRecall(
+                parseTarget(target), sampleSize, k, efSearch);
+
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Path segment to index target, case-insensitive; unknown targets are a 400, not a 500
+     */
+    private static IndexTarget parseTarget(String target) {
+        for (IndexTarget candidate : IndexTarget.values()) {
+            if (candidate.name().equalsIgnoreCase(target)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown index target '" + target + "', expected one of: "
+                + Arrays.stream(IndexTarget.values())
+                        .map(t -> t.name().toLowerCase(Locale.ROOT))
+                        .collect(Collectors.joining(", ")));
+    }
+}
@@ -0,0 +1,30 @@
+package com.movieapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatJobDTO {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    private String jobId;
+    private Status status;
+    private ChatMessageDTO result;      // set once COMPLETED
+    private String error;               // set when FAILED
+    private Long retryAfterSeconds;     // set when FAILED because Ollama was saturated
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
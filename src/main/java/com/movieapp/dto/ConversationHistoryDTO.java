@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -14,4 +15,7 @@ public class ConversationHistoryDTO {
     private Long conversationId;
     private String title;
     private List<ChatMessageDTO> messages;
+    private Boolean hasMore;            // older messages exist
+    private LocalDateTime nextBefore;   // pass as ?before= (with nextBeforeId) to fetch the previous page
+    private Long nextBeforeId;          // pass as ?beforeId=; breaks ties between messages with the same timestamp
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.movieapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieSuggestionDTO {
+    private Long id;
+    private String title;
+    private Integer year;
+    private String posterPath;
+}
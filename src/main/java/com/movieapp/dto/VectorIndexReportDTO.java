@@ -0,0 +1,32 @@
+package com.movieapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VectorIndexReportDTO {
+    private String indexName;
+    private String indexDefinition;
+    private int sampleSize;
+    private int k;
+    private double exactAvgLatencyMs;
+    private List<EfSearchResult> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EfSearchResult {
+        private int efSearch;
+        private double recall;        // Fraction of exact top-k found by the index (0-1)
+        private double avgLatencyMs;
+        private double p95LatencyMs;
+    }
+}
@@ -38,6 +38,16 @@ public class ChatConversation {
     @Column(name = "message_count")
     private Integer messageCount = 0;
 
+    // Rolling summary of messages up to summaryThroughMessageId (older turns no longer sent verbatim)
+    @Column(name = "summary", columnDefinition = "TEXT")
+    private String summary;
+
+    @Column(name = "summary_through_message_id")
+    private Long summaryThroughMessageId;
+
+    @Column(name = "summary_updated_at")
+    private LocalDateTime summaryUpdatedAt;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
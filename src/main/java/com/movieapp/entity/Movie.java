@@ -71,6 +71,24 @@ public class Movie {
     @Column(name = "embedding_generated_at")
     private LocalDateTime embeddingGeneratedAt;
 
+    // Random projection of embedding for coarse (first-stage) candidate search
+    @Column(name = "embedding_reduced", columnDefinition = "vector(128)")
+    @Type(value = com.movieapp.util.PGvectorType.class)
+    private PGvector embeddingReduced;
+
+    @Column(name = "embedding_reduced_at")
+    private LocalDateTime embeddingReducedAt;
+
+    // Precomputed chat context snippet, rebuilt when the movie is saved or synced
+    @Column(name = "context_card", columnDefinition = "TEXT")
+    private String contextCard;
+
+    @Column(name = "context_card_version")
+    private Integer contextCardVersion;
+
+    @Column(name = "context_card_updated_at")
+    private LocalDateTime contextCardUpdatedAt;
+
     @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
             name = "movie_genres",
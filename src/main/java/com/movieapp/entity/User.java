@@ -55,6 +55,10 @@ public class User implements UserDetails {
     @Column(name = "onboarding_completed")
     private Boolean onboardingCompleted = false;
 
+    // Chat answers for this user are neither served from nor stored in the shared response cache
+    @Column(name = "chat_cache_opt_out")
+    private Boolean chatCacheOptOut = false;
+
     @Column(name = "preference_vector", columnDefinition = "vector(768)")
     @Type(value = com.movieapp.util.PGvectorType.class)
     private PGvector preferenceVector;
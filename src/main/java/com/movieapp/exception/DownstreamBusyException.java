@@ -0,0 +1,19 @@
+package com.movieapp.exception;
+
+public class DownstreamBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public DownstreamBusyException(String message) {
+        this(message, 1);
+    }
+
+    public DownstreamBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
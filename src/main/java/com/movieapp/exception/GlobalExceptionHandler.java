@@ -0,0 +1,57 @@
+package com.movieapp.exception;
+
+import com.movieapp.dto.ErrorResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.LocalDateTime;
+
+@RestControllerAdvice
+@Slf4j
+public class GlobalExceptionHandler {
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleRateLimitExceeded(RateLimitExceededException e,
+                                                                 HttpServletRequest request) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS);
+        if (e.getRetryAfterSeconds() > 0) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        }
+        return response.body(errorResponse(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), request));
+    }
+
+    /**
+     * A downstream (Ollama, TMDb, Google) is saturated: fail fast and tell the client when to retry
+     */
+    @ExceptionHandler(DownstreamBusyException.class)
+    public ResponseEntity<ErrorResponse> handleDownstreamBusy(DownstreamBusyException e,
+                                                              HttpServletRequest request) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(errorResponse(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), request));
+    }
+
+    /**
+     * Invalid request values rejected by a controller or service (unknown index target, out-of-range parameters)
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalArgument(IllegalArgumentException e,
+                                                               HttpServletRequest request) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(errorResponse(HttpStatus.BAD_REQUEST, e.getMessage(), request));
+    }
+
+    private ErrorResponse errorResponse(HttpStatus status, String message, HttpServletRequest request) {
+        return ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .message(message)
+                .path(request.getRequestURI())
+                .build();
+    }
+}
@@ -1,7 +1,20 @@
 package com.movieapp.exception;
 
 public class RateLimitExceededException extends RuntimeException {
+
+    // 0 when the limit does not tell when to retry
+    private final long retryAfterSeconds;
+
     public RateLimitExceededException(String message) {
+        this(message, 0);
+    }
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
         super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
     }
 }
@@ -4,6 +4,7 @@ import com.movieapp.entity.ChatConversation;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -19,4 +20,34 @@ public interface ChatConversationRepository extends JpaRepository<ChatConversati
 
     @Query("SELECT c.messageCount FROM ChatConversation c WHERE c.user.id = :userId")
     Integer getMessageCountByUserId(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Store a new rolling summary only if nobody else advanced it since it was read
+     * (previousThroughId is 0 when the conversation had no summary). Returns the number of rows updated.
+     */
+    @Modifying
+    @Query("UPDATE ChatConversation c SET c.summary = :summary, c.summaryThroughMessageId = :throughId, " +
+            "c.summaryUpdatedAt = CURRENT_TIMESTAMP " +
+            "WHERE c.id = :id AND COALESCE(c.summaryThroughMessageId, 0) = :previousThroughId")
+    int updateSummary(
+            @Param("id") Long id,
+            @Param("summary") String summary,
+            @Param("throughId") Long throughId,
+            @Param("previousThroughId") Long previousThroughId
+    );
+
+    /**
+     * Atomic counter update (no read-modify-write of the entity)
+     */
+    @Modifying
+    @Query("UPDATE ChatConversation c SET c.messageCount = COALESCE(c.messageCount, 0) + :delta WHERE c.id = :id")
+    int incrementMessageCount(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * Reset the message counter and rolling summary of a user's conversation (history is being cleared)
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE ChatConversation c SET c.messageCount = 0, c.summary = NULL, c.summaryThroughMessageId = NULL, " +
+            "c.summaryUpdatedAt = NULL, c.updatedAt = CURRENT_TIMESTAMP WHERE c.user.id = :userId")
+    int resetHistoryByUserId(@Param("userId") Long userId);
+}
@@ -1,22 +1,72 @@
 package com.movieapp.repository;
 
 import com.movieapp.entity.ChatMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
 
-    List<ChatMessage> findByConversationIdOrderByCreatedAtAsc(Long conversationId);
+    /**
+     * Newest messages first, bounded by the page size (backward scan of idx_chat_messages_conversation_created_id)
+     */
+    @Query("SELECT m FROM ChatMessage m WHERE m.conversation.id = :conversationId " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessage> findLatestByConversation(
+            @Param("conversationId") Long conversationId,
+            Pageable pageable
+    );
+
+    /**
+     * Keyset page: the newest messages strictly before the (createdAt, id) cursor, so messages
+     * sharing a timestamp are neither skipped nor repeated across pages
+     */
+    @Query("SELECT m FROM ChatMessage m WHERE m.conversation.id = :conversationId " +
+            "AND (m.createdAt, m.id) < (:before, :beforeId) ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessage> findLatestByConversationBefore(
+            @Param("conversationId") Long conversationId,
+            @Param("before") LocalDateTime before,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable
+    );
 
-    @Query("SELECT m FROM ChatMessage m WHERE m.conversation.id = :conversationId ORDER BY m.createdAt DESC")
-    List<ChatMessage> findRecentMessagesByConversation(
-            @Param("conversationId") Long conversationId
+    /**
+     * Oldest messages first after the given message id (messages not yet folded into the rolling summary)
+     */
+    @Query("SELECT m FROM ChatMessage m WHERE m.conversation.id = :conversationId " +
+            "AND m.id > :afterId ORDER BY m.createdAt ASC, m.id ASC")
+    List<ChatMessage> findByConversationAfter(
+            @Param("conversationId") Long conversationId,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    /**
+     * Newest messages first after the given message id (the tail of what the rolling summary has not folded yet)
+     */
+    @Query("SELECT m FROM ChatMessage m WHERE m.conversation.id = :conversationId " +
+            "AND m.id > :afterId ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessage> findLatestByConversationAfter(
+            @Param("conversationId") Long conversationId,
+            @Param("afterId") Long afterId,
+            Pageable pageable
     );
 
     @Query("SELECT COUNT(m) FROM ChatMessage m WHERE m.conversation.id = :conversationId")
     Long countByConversationId(@Param("conversationId") Long conversationId);
-}
\ No newline at end of file
+
+    /**
+     * Bulk delete of every message in a user's conversation; no entities are loaded
+     * (refs follow via the V18 trigger). Returns the number of messages deleted.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM ChatMessage m WHERE m.conversation.id IN " +
+            "(SELECT c.id FROM ChatConversation c WHERE c.user.id = :userId)")
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -5,10 +5,13 @@ import com.movieapp.entity.Keyword;
 import com.movieapp.entity.Movie;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -20,13 +23,41 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
     @Query("SELECT m FROM Movie m WHERE LOWER(m.title) LIKE LOWER(CONCAT('%', :query, '%'))")
     Page<Movie> searchByTitle(@Param("query") String query, Pageable pageable);
 
+    /**
+     * Typeahead prefix lookup backed by idx_movies_title_lower_prefix
+     * Returns id, title, release_date, poster_path
+     */
+    @Query(value = """
+    SELECT m.id, m.title, m.release_date, m.poster_path
+    FROM movies m
+    WHERE LOWER(m.title) LIKE :prefix || '%'
+    ORDER BY m.popularity DESC NULLS LAST
+    LIMIT :limit""", nativeQuery = true)
+    List<Object[]> suggestByTitlePrefix(@Param("prefix") String prefix, @Param("limit") int limit);
+
+    /**
+     * Typeahead fuzzy lookup using the pg_trgm % operator over idx_movies_title_trgm
+     * Call setTrigramSimilarityThreshold in the same transaction first
+     */
     @Query(value = """
-    SELECT id, title
-    FROM movies
-    WHERE title ILIKE '%' || :q || '%'
-    ORDER BY similarity(title, :q) DESC
-    LIMIT 10""", nativeQuery = true)
-    Page<Movie> searchSuggest(@Param("query") String query, Pageable pageable);
+    SELECT m.id, m.title, m.release_date, m.poster_path
+    FROM movies m
+    WHERE m.title % :query
+    ORDER BY similarity(m.title, :query) DESC, m.popularity DESC NULLS LAST
+    LIMIT :limit""", nativeQuery = true)
+    List<Object[]> suggestByTitleSimilarity(@Param("query") String query, @Param("limit") int limit);
+
+    /**
+     * Set pg_trgm.similarity_threshold for the current transaction only
+     */
+    @Query(value = "SELECT set_config('pg_trgm.similarity_threshold', :threshold, true)", nativeQuery = true)
+    String setTrigramSimilarityThreshold(@Param("threshold") String threshold);
+
+    /**
+     * Set hnsw.ef_search for the current transaction only (pgvector HNSW candidate list size)
+     */
+    @Query(value = "SELECT set_config('hnsw.ef_search', :efSearch, true)", nativeQuery = true)
+    String setHnswEfSearch(@Param("efSearch") String efSearch);
 
     // Find movies by genres (ManyToMany relationship)
     @Query("SELECT DISTINCT m FROM Movie m JOIN m.genres g WHERE g IN :genres")
@@ -100,4 +131,116 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
             @Param("limit") int limit
     );
 
+    /**
+     * Load embeddings for a set of movies as pgvector text, for in-memory re-ranking
+     */
+    @Query(value = "SELECT m.id, CAST(m.embedding AS text) FROM movies m " +
+            "WHERE m.id IN :movieIds AND m.embedding IS NOT NULL",
+            nativeQuery = true)
+    List<Object[]> findEmbeddingsByIds(@Param("movieIds") Collection<Long> movieIds);
+
+    /**
+     * Movies whose reduced embedding is missing or older than the full embedding
+     * (predicate kept identical to the partial index idx_movies_embedding_reduced_backlog)
+     */
+    @Query(value = "SELECT m.id, CAST(m.embedding AS text) FROM movies m " +
+            "WHERE m.embedding IS NOT NULL " +
+            "AND (m.embedding_reduced IS NULL OR m.embedding_reduced_at < m.embedding_generated_at) " +
+            "ORDER BY m.id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Object[]> findMoviesNeedingReducedEmbedding(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "UPDATE movies SET embedding_reduced = CAST(:vector AS vector), " +
+            "embedding_reduced_at = CURRENT_TIMESTAMP WHERE id = :movieId",
+            nativeQuery = true)
+    int updateReducedEmbedding(@Param("movieId") Long movieId, @Param("vector") String vector);
+
+    @Query(value = "SELECT m.id, CAST(m.embedding_reduced AS text) FROM movies m " +
+            "WHERE m.embedding_reduced IS NOT NULL",
+            nativeQuery = true)
+    List<Object[]> findAllReducedEmbeddings();
+
+    /**
+     * Fingerprint of the reduced embedding tier (count and latest update); changes whenever a reduced
+     * embedding is written, whether by the backfill job or inline when a movie is embedded
+     */
+    @Query(value = "SELECT COUNT(m.embedding_reduced) || ':' || COALESCE(CAST(MAX(m.embedding_reduced_at) AS text), '') " +
+            "FROM movies m",
+            nativeQuery = true)
+    String findReducedEmbeddingVersion();
+
+    /**
+     * Batched chat context lookup: card, live rating stats and lower-cased genre names per movie
+     * Returns id, title, context_card, context_card_version, avg_rating, rating_count, genre_names
+     */
+    @Query(value = "SELECT m.id, m.title, m.context_card, m.context_card_version, m.avg_rating, m.rating_count, " +
+            "COALESCE((SELECT string_agg(LOWER(g.name), ',') FROM movie_genres mg " +
+            "JOIN genres g ON g.id = mg.genre_id WHERE mg.movie_id = m.id), '') AS genre_names " +
+            "FROM movies m WHERE m.id IN :movieIds",
+            nativeQuery = true)
+    List<Object[]> findContextCardsByIds(@Param("movieIds") Collection<Long> movieIds);
+
+    /**
+     * Movies with genres and keywords fetch-joined for context card rendering
+     * (cast and directors follow in IN-batches via hibernate.default_batch_fetch_size)
+     */
+    @EntityGraph(attributePaths = {"genres", "keywords"})
+    @Query("SELECT DISTINCT m FROM Movie m WHERE m.id IN :movieIds")
+    List<Movie> findAllWithCardDetailsByIdIn(@Param("movieIds") Collection<Long> movieIds);
+
+    /**
+     * All titles for the chat text matcher, most-rated first (first id wins for duplicate titles)
+     */
+    @Query(value = "SELECT m.id, m.title FROM movies m " +
+            "ORDER BY m.rating_count DESC NULLS LAST, m.popularity DESC NULLS LAST, m.id",
+            nativeQuery = true)
+    List<Object[]> findAllTitles();
+
+    /**
+     * Cheap change detector for the catalogue: movie count, newest id, latest card refresh (set on save/sync)
+     */
+    @Query(value = "SELECT COUNT(*) || ':' || COALESCE(MAX(id), 0) || ':' || " +
+            "COALESCE(CAST(MAX(context_card_updated_at) AS text), '') || ':' || " +
+            "(SELECT COUNT(*) FROM genres) FROM movies",
+            nativeQuery = true)
+    String getCatalogueFingerprint();
+
+    /**
+     * Movies whose context card is missing or was rendered by an older card format
+     */
+    @Query(value = "SELECT m.id FROM movies m " +
+            "WHERE m.context_card IS NULL OR m.context_card_version < :version " +
+            "ORDER BY m.id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findMovieIdsNeedingContextCard(@Param("version") int version, @Param("limit") int limit);
+
+    /**
+     * Two-stage KNN: shortlist by the reduced embedding (HNSW), then exact rescoring on the full embedding
+     * Returns the same columns as findSimilarMoviesByVector
+     */
+    @Query(value = "WITH candidates AS MATERIALIZED (" +
+            "SELECT c.id FROM movies c " +
+            "WHERE c.embedding_reduced IS NOT NULL " +
+            "AND c.id NOT IN :excludeMovieIds " +
+            "ORDER BY c.embedding_reduced <=> CAST(:reducedVector AS vector) " +
+            "LIMIT :shortlist) " +
+            "SELECT m.id, m.tmdb_id, m.title, m.poster_path, m.avg_rating, m.release_date, " +
+            "1 - (m.embedding <=> CAST(:vector AS vector)) as similarity " +
+            "FROM movies m " +
+            "JOIN candidates ON candidates.id = m.id " +
+            "WHERE m.embedding IS NOT NULL " +
+            "ORDER BY m.embedding <=> CAST(:vector AS vector) " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Object[]> findMoviesByVectorTwoStage(
+            @Param("vector") String vector,
+            @Param("reducedVector") String reducedVector,
+            @Param("excludeMovieIds") Collection<Long> excludeMovieIds,
+            @Param("shortlist") int shortlist,
+            @Param("limit") int limit
+    );
+
 }
\ No newline at end of file
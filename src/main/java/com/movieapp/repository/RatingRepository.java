@@ -32,6 +32,10 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
     @Query("SELECT r.user.id FROM Rating r WHERE r.movie.id IN :movieIds AND r.user.id != :userId GROUP BY r.user.id HAVING COUNT(DISTINCT r.movie.id) >= :minCommon")
     List<Long> findSimilarUsers(@Param("userId") Long userId, @Param("movieIds") List<Long> movieIds, @Param("minCommon") Long minCommon);
 
+    // Ratings of a set of users at or above a threshold, as (userId, movieId, rating) rows
+    @Query("SELECT r.user.id, r.movie.id, r.rating FROM Rating r WHERE r.user.id IN :userIds AND r.rating >= :minRating")
+    List<Object[]> findRatingsByUserIdsAtLeast(@Param("userIds") List<Long> userIds, @Param("minRating") Integer minRating);
+
     @Query("SELECT AVG(r.rating) FROM Rating r WHERE r.movie.id = :movieId")
     Double calculateAverageRating(@Param("movieId") Long movieId);
 }
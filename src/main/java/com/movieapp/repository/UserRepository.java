@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -23,4 +24,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query("SELECT COUNT(u) FROM User u WHERE u.createdAt >= :date")
     long countUsersCreatedAfter(@Param("date") LocalDateTime date);
+
+    /**
+     * Find users with the closest preference vectors (KNN over idx_users_preference_vector_hnsw)
+     * Returns user id and cosine similarity
+     */
+    @Query(value = "SELECT u.id, 1 - (u.preference_vector <=> CAST(:vector AS vector)) as similarity " +
+            "FROM users u " +
+            "WHERE u.preference_vector IS NOT NULL " +
+            "AND u.id != :excludeUserId " +
+            "ORDER BY u.preference_vector <=> CAST(:vector AS vector) " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Object[]> findSimilarUsersByVector(
+            @Param("vector") String vector,
+            @Param("excludeUserId") Long excludeUserId,
+            @Param("limit") int limit
+    );
 }
\ No newline at end of file
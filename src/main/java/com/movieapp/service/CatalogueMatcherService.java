@@ -0,0 +1,219 @@
+package com.movieapp.service;
+
+import com.movieapp.entity.Genre;
+import com.movieapp.repository.GenreRepository;
+import com.movieapp.repository.MovieRepository;
+import com.movieapp.util.AhoCorasickMatcher;
+import com.movieapp.util.AhoCorasickMatcher.Match;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Shared multi-pattern matcher over catalogue titles, genre names and movie topic keywords.
+ * One Aho-Corasick pass over a chat message or response finds every mention; the automaton is rebuilt
+ * in the background when the catalogue fingerprint changes and swapped in atomically.
+ */
+@Service
+@Slf4j
+public class CatalogueMatcherService {
+
+    public enum TermType {
+        TITLE,
+        GENRE,
+        TOPIC
+    }
+
+    // Words that mark a query as movie-related (whole words only)
+    private static final List<String> TOPIC_KEYWORDS = List.of(
+            "movie", "movies", "film", "films", "cinema", "watch", "watching", "watched",
+            "recommend", "recommendation", "recommendations", "show me", "suggest", "suggestions",
+            "actor", "actors", "actress", "actresses", "director", "directors", "directed",
+            "genre", "genres", "plot", "story", "stories", "character", "characters",
+            "scene", "scenes", "ending", "endings", "rated", "sequel", "sequels", "trailer",
+            // Unambiguous genre words (not "war", "family" or "history", which are common outside movies)
+            "drama", "dramas", "action", "comedy", "comedies", "thriller", "thrillers",
+            "horror", "romance", "sci-fi", "animation", "animated"
+    );
+
+    // Genres recognised before the first catalogue load (lower-cased TMDb names)
+    private static final List<String> DEFAULT_GENRES = List.of(
+            "war", "drama", "action", "comedy", "thriller", "horror", "romance", "science fiction", "animation"
+    );
+
+    // Common spellings that differ from the TMDb genre name
+    private static final Map<String, String> GENRE_ALIASES = Map.of(
+            "sci-fi", "science fiction",
+            "scifi", "science fiction",
+            "animated", "animation",
+            "romantic", "romance",
+            "documentaries", "documentary",
+            "comedies", "comedy",
+            "thrillers", "thriller",
+            "dramas", "drama"
+    );
+
+    // Titles shorter than this ("Up", "It", "Her") only match with their exact capitalisation
+    private static final int MIN_CASE_INSENSITIVE_TITLE_LENGTH = 4;
+
+    // Markdown emphasis and quotes the model puts around titles (**Heat**, "Drive")
+    private static final String OPENING_MARKS = "\"*_'\u201C\u2018";
+    private static final String CLOSING_MARKS = "\"*_'\u201D\u2019";
+
+    private final MovieRepository movieRepository;
+    private final GenreRepository genreRepository;
+
+    private volatile Snapshot snapshot;
+
+    public CatalogueMatcherService(MovieRepository movieRepository, GenreRepository genreRepository) {
+        this.movieRepository = movieRepository;
+        this.genreRepository = genreRepository;
+        this.snapshot = build(null, List.of(), new HashSet<>(DEFAULT_GENRES));
+    }
+
+    /**
+     * Background job: rebuild the automaton when movies or genres were added or changed
+     */
+    @Scheduled(
+            initialDelayString = "${chat.matcher.initial-delay-ms:5000}",
+            fixedDelayString = "${chat.matcher.refresh-interval-ms:60000}")
+    public void refreshIfChanged() {
+        String fingerprint = movieRepository.getCatalogueFingerprint();
+        if (Objects.equals(fingerprint, snapshot.fingerprint())) {
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        Set<String> genres = new HashSet<>(DEFAULT_GENRES);
+        for (Genre genre : genreRepository.findAll()) {
+            genres.add(genre.getName().toLowerCase());
+        }
+
+        Snapshot rebuilt = build(fingerprint, movieRepository.findAllTitles(), genres);
+        snapshot = rebuilt;
+
+        log.info("Catalogue matcher rebuilt: {} patterns in {} ms",
+                rebuilt.matcher().getPatternCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Snapshot build(String fingerprint, List<Object[]> titles, Set<String> genres) {
+        AhoCorasickMatcher.Builder<Term> builder = AhoCorasickMatcher.builder();
+
+        for (String keyword : TOPIC_KEYWORDS) {
+            builder.add(keyword, new Term(TermType.TOPIC, keyword, null));
+        }
+        for (String genre : genres) {
+            builder.add(genre, new Term(TermType.GENRE, genre, null));
+        }
+        GENRE_ALIASES.forEach((alias, genre) -> {
+            if (genres.contains(genre)) {
+                builder.add(alias, new Term(TermType.GENRE, genre, null));
+            }
+        });
+        for (Object[] row : titles) {
+            String title = (String) row[1];
+            builder.add(title, new Term(TermType.TITLE, title.strip(), ((Number) row[0]).longValue()));
+        }
+
+        return new Snapshot(fingerprint, builder.build());
+    }
+
+    /**
+     * Fingerprint of the catalogue the current automaton was built from (null before the first load)
+     */
+    public String getCatalogueVersion() {
+        return snapshot.fingerprint();
+    }
+
+    /**
+     * True if the text contains a movie topic keyword
+     */
+    public boolean mentionsMovieTopic(String text) {
+        for (Match<Term> match : snapshot.matcher().findAll(text)) {
+            if (match.payload().type() == TermType.TOPIC) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Canonical (lower-cased TMDb) names of the genres mentioned in the text
+     */
+    public Set<String> findGenres(String text) {
+        Set<String> genres = new LinkedHashSet<>();
+        for (Match<Term> match : snapshot.matcher().findAll(text)) {
+            if (match.payload().type() == TermType.GENRE) {
+                genres.add(match.payload().value());
+            }
+        }
+        return genres;
+    }
+
+    /**
+     * Ids of catalogue movies whose title appears in the text, in order of first mention.
+     * Longest title wins on overlaps; for titles shared by several movies the preferred one
+     * (e.g. a movie retrieved for this turn) is chosen, otherwise the most-rated.
+     * Movies outside the preferred set need stronger evidence, since many titles are ordinary words
+     * ("Heat", "Drive", "Home"): exact capitalisation, and for single-word titles quotes or emphasis around them.
+     */
+    public List<Long> findMovieIds(String text, Collection<Long> preferredIds) {
+        List<Match<Term>> titleMatches = new ArrayList<>();
+        for (Match<Term> match : snapshot.matcher().findAll(text)) {
+            Term term = match.payload();
+            if (term.type() != TermType.TITLE) {
+                continue;
+            }
+            boolean accepted = preferredIds.contains(term.movieId())
+                    ? matchesCase(text, match, term)
+                    : matchesExactly(text, match, term);
+            if (accepted) {
+                titleMatches.add(match);
+            }
+        }
+
+        // Group payloads by span: several movies can share a title
+        Map<Long, List<Long>> candidatesBySpan = new LinkedHashMap<>();
+        for (Match<Term> match : AhoCorasickMatcher.longestNonOverlapping(titleMatches)) {
+            long span = ((long) match.start() << 32) | match.end();
+            candidatesBySpan.computeIfAbsent(span, k -> new ArrayList<>()).add(match.payload().movieId());
+        }
+
+        Set<Long> ids = new LinkedHashSet<>();
+        for (List<Long> candidates : candidatesBySpan.values()) {
+            ids.add(candidates.stream()
+                    .filter(preferredIds::contains)
+                    .findFirst()
+                    .orElse(candidates.get(0)));
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private boolean matchesCase(String text, Match<Term> match, Term term) {
+        String title = term.value();
+        return title.length() >= MIN_CASE_INSENSITIVE_TITLE_LENGTH
+                || text.regionMatches(false, match.start(), title, 0, title.length());
+    }
+
+    private boolean matchesExactly(String text, Match<Term> match, Term term) {
+        String title = term.value();
+        if (!text.regionMatches(false, match.start(), title, 0, title.length())) {
+            return false;
+        }
+        return title.chars().anyMatch(Character::isWhitespace) || isMarked(text, match.start(), match.end());
+    }
+
+    // Span [start, end) directly wrapped in quotes or emphasis
+    private boolean isMarked(String text, int start, int end) {
+        return start > 0 && end < text.length()
+                && OPENING_MARKS.indexOf(text.charAt(start - 1)) >= 0
+                && CLOSING_MARKS.indexOf(text.charAt(end)) >= 0;
+    }
+
+    public record Term(TermType type, String value, Long movieId) {}
+
+    private record Snapshot(String fingerprint, AhoCorasickMatcher<Term> matcher) {}
+}
@@ -0,0 +1,255 @@
+package com.movieapp.service;
+
+import com.google.gson.stream.JsonWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Time-based retention for chat history (chat_messages is range-partitioned by month, see V18).
+ * Keeps partitions created ahead of time and, when chat.auto-cleanup-enabled, exports every month that lies
+ * entirely outside the chat.cleanup-days window to a gzipped NDJSON file and drops its partition.
+ * Expired rows that landed in the default partition are exported and deleted the same way.
+ */
+@Service
+@Slf4j
+public class ChatArchiveService {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("chat_messages_p(\\d{4})(\\d{2})");
+    private static final String DEFAULT_PARTITION = "chat_messages_default";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final String EXPORT_SQL = """
+            SELECT m.id, m.conversation_id, c.user_id, m.role, m.content, m.is_off_topic, m.created_at,
+                   ARRAY(SELECT r.movie_id FROM message_movie_refs r WHERE r.message_id = m.id) AS movie_ids
+            FROM %s m
+            JOIN chat_conversations c ON c.id = m.conversation_id
+            WHERE m.created_at < ?
+            ORDER BY m.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate exportTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean cleanupEnabled;
+    private final int retentionDays;
+    private final int premadeMonths;
+    private final Path archiveDirectory;
+
+    public ChatArchiveService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${chat.auto-cleanup-enabled:false}") boolean cleanupEnabled,
+            @Value("${chat.cleanup-days:90}") int retentionDays,
+            @Value("${chat.archive.premade-months:3}") int premadeMonths,
+            @Value("${chat.archive.directory:./data/chat-archive}") String archiveDirectory,
+            @Value("${chat.archive.fetch-size:1000}") int fetchSize) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.exportTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cleanupEnabled = cleanupEnabled;
+        this.retentionDays = retentionDays;
+        this.premadeMonths = premadeMonths;
+        this.archiveDirectory = Paths.get(archiveDirectory);
+    }
+
+    /**
+     * Background job: create upcoming partitions, then archive expired months
+     */
+    @Scheduled(
+            initialDelayString = "${chat.archive.initial-delay-ms:120000}",
+            fixedDelayString = "${chat.archive.interval-ms:21600000}")
+    public void maintainPartitions() {
+        ensurePartitions();
+
+        if (cleanupEnabled) {
+            archiveExpired();
+        }
+    }
+
+    /**
+     * Partitions for the current month and the next premade-months (idempotent).
+     * Rows of a month that already sit in the default partition are moved into the new partition (see V20);
+     * a month that still fails is logged and retried next run without holding up archiving.
+     */
+    public void ensurePartitions() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= premadeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                jdbcTemplate.queryForObject("SELECT chat_messages_ensure_partition(?)", String.class, month.atDay(1));
+            } catch (DataAccessException e) {
+                log.error("Could not create chat partition for {}: {}", month, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Archive and drop every monthly partition older than the retention window
+     *
+     * @return number of archived messages
+     */
+    public long archiveExpired() {
+        LocalDateTime cutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+        long archived = 0;
+
+        for (String partition : listPartitions()) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+            if (!end.isAfter(cutoff)) {
+                archived += archivePartition(partition, end);
+            }
+        }
+
+        archived += archiveDefaultPartition(cutoff);
+        return archived;
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'chat_messages'::regclass
+                ORDER BY c.relname
+                """, String.class);
+    }
+
+    private long archivePartition(String partition, LocalDateTime end) {
+        long start = System.nanoTime();
+        Path file = archiveDirectory.resolve(partition + ".ndjson.gz");
+
+        // Export first: if it fails the partition stays attached and the next run retries
+        long rows = export(partition, end, file);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("""
+                    UPDATE chat_conversations c
+                    SET message_count = GREATEST(COALESCE(c.message_count, 0) - x.archived, 0)
+                    FROM (SELECT conversation_id, COUNT(*) AS archived FROM %s GROUP BY conversation_id) x
+                    WHERE c.id = x.conversation_id
+                    """.formatted(partition));
+            // Dropping a partition fires no DELETE trigger, so refs go explicitly
+            jdbcTemplate.update("DELETE FROM message_movie_refs r USING " + partition + " m WHERE r.message_id = m.id");
+            jdbcTemplate.execute("ALTER TABLE chat_messages DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        });
+
+        log.info("Archived chat partition {}: {} messages to {} in {} ms",
+                partition, rows, file, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    private long archiveDefaultPartition(LocalDateTime cutoff) {
+        Integer expired = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + DEFAULT_PARTITION + " WHERE created_at < ?", Integer.class,
+                Timestamp.valueOf(cutoff));
+        if (expired == null || expired == 0) {
+            return 0;
+        }
+
+        // Unique per run: earlier archives of this partition hold rows that are already deleted
+        Path file = archiveDirectory.resolve(
+                DEFAULT_PARTITION + "-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".ndjson.gz");
+        if (Files.exists(file)) {
+            throw new IllegalStateException("Chat archive " + file + " already exists");
+        }
+        long rows = export(DEFAULT_PARTITION, cutoff, file);
+
+        // Through the parent table so the refs trigger fires; counters drop in the same statement
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("""
+                WITH deleted AS (
+                    DELETE FROM chat_messages
+                    WHERE created_at < ? AND tableoid = '%s'::regclass
+                    RETURNING conversation_id
+                )
+                UPDATE chat_conversations c
+                SET message_count = GREATEST(COALESCE(c.message_count, 0) - x.archived, 0)
+                FROM (SELECT conversation_id, COUNT(*) AS archived FROM deleted GROUP BY conversation_id) x
+                WHERE c.id = x.conversation_id
+                """.formatted(DEFAULT_PARTITION), Timestamp.valueOf(cutoff)));
+
+        log.info("Archived {} expired messages from the default chat partition to {}", rows, file);
+        return rows;
+    }
+
+    /**
+     * Stream rows older than the bound into a gzipped NDJSON file (one message per line),
+     * written to a temporary file and moved into place once complete
+     */
+    private long export(String table, LocalDateTime before, Path file) {
+        try {
+            Files.createDirectories(archiveDirectory);
+            Path partial = file.resolveSibling(file.getFileName() + ".partial");
+
+            long[] rows = {0};
+            try (Writer out = new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(partial)), StandardCharsets.UTF_8)) {
+                // Lenient: one top-level object per line
+                JsonWriter writer = new JsonWriter(out);
+                writer.setLenient(true);
+
+                // A cursor needs a transaction; the fetch size keeps memory constant
+                transactionTemplate.executeWithoutResult(status -> exportTemplate.query(String.format(EXPORT_SQL, table), rs -> {
+                    try {
+                        writer.beginObject()
+                                .name("id").value(rs.getLong("id"))
+                                .name("conversationId").value(rs.getLong("conversation_id"))
+                                .name("userId").value(rs.getLong("user_id"))
+                                .name("role").value(rs.getString("role"))
+                                .name("content").value(rs.getString("content"))
+                                .name("isOffTopic").value(rs.getBoolean("is_off_topic"))
+                                .name("createdAt").value(rs.getTimestamp("created_at").toLocalDateTime().toString())
+                                .name("referencedMovieIds").beginArray();
+                        Array movieIds = rs.getArray("movie_ids");
+                        for (Long movieId : (Long[]) movieIds.getArray()) {
+                            writer.value(movieId);
+                        }
+                        writer.endArray().endObject();
+                        out.write('\n');
+                        rows[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, Timestamp.valueOf(before)));
+            }
+
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return rows[0];
+
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalStateException("Failed to archive " + table + " to " + file, e);
+        }
+    }
+}
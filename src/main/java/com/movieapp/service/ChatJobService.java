@@ -0,0 +1,235 @@
+package com.movieapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.movieapp.dto.ChatJobDTO;
+import com.movieapp.dto.ChatJobDTO.Status;
+import com.movieapp.dto.ChatMessageDTO;
+import com.movieapp.exception.DownstreamBusyException;
+import com.movieapp.exception.RateLimitExceededException;
+import com.movieapp.util.CancellationSignal;
+import com.movieapp.util.LlmBudgetLimiter.Reservation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Asynchronous chat jobs: the RAG pipeline runs on the chat job executor and the result is kept
+ * for a retention period, so clients that cannot hold an SSE connection can poll (or long-poll) for it.
+ * Jobs live in memory on the instance that accepted them.
+ */
+@Service
+@Slf4j
+public class ChatJobService {
+
+    private static final long MAX_WAIT_SECONDS = 30;
+
+    private final MovieChatService chatService;
+    private final AsyncTaskExecutor executor;
+    private final int maxActivePerUser;
+
+    private final Cache<String, ChatJob> jobs;
+    // Queued or running jobs per user; entries are only changed inside compute so check and update are atomic
+    private final ConcurrentHashMap<Long, Integer> activeByUser = new ConcurrentHashMap<>();
+
+    public ChatJobService(
+            MovieChatService chatService,
+            @Qualifier("chatJobExecutor") AsyncTaskExecutor executor,
+            @Value("${chat.jobs.max-active-per-user:2}") int maxActivePerUser,
+            @Value("${chat.jobs.retention-minutes:30}") long retentionMinutes,
+            @Value("${chat.jobs.max-retained:10000}") long maxRetained) {
+
+        this.chatService = chatService;
+        this.executor = executor;
+        this.maxActivePerUser = maxActivePerUser;
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(maxRetained)
+                .expireAfterWrite(Duration.ofMinutes(retentionMinutes))
+                .build();
+    }
+
+    /**
+     * Queue a chat message; returns immediately with the job in QUEUED state
+     * The job settles the LLM budget reservation when it finishes (a rejected submit settles it right away)
+     */
+    public ChatJobDTO submit(Long userId, String message, Reservation budget) {
+        boolean[] admitted = {false};
+        activeByUser.compute(userId, (id, count) -> {
+            int active = count != null ? count : 0;
+            if (active >= maxActivePerUser) {
+                return count;
+            }
+            admitted[0] = true;
+            return active + 1;
+        });
+        if (!admitted[0]) {
+            budget.settle();
+            throw new RateLimitExceededException(
+                    "You already have " + maxActivePerUser + " chat requests in progress. Please wait for them to finish.");
+        }
+
+        ChatJob job = new ChatJob(UUID.randomUUID().toString(), userId);
+        jobs.put(job.id, job);
+
+        try {
+            executor.execute(() -> run(job, message, budget));
+        } catch (TaskRejectedException e) {
+            jobs.invalidate(job.id);
+            releaseSlot(userId);
+            budget.settle();
+            log.warn("Chat job pool saturated, rejecting job for user {}", userId);
+            throw new DownstreamBusyException("The movie mentor is busy right now. Please try again shortly.", 5);
+        }
+
+        log.debug("Queued chat job {} for user {}", job.id, userId);
+        return job.toDTO();
+    }
+
+    private void run(ChatJob job, String message, Reservation budget) {
+        try {
+            if (!job.start()) {
+                return;     // cancelled while queued
+            }
+            job.complete(chatService.chat(job.userId, message, budget, job.cancellation));
+        } catch (CancellationException e) {
+            job.finish(Status.CANCELLED, null, null, null);
+            log.info("Chat job {} cancelled", job.id);
+        } catch (DownstreamBusyException e) {
+            job.finish(Status.FAILED, null, e.getMessage(), e.getRetryAfterSeconds());
+        } catch (Exception e) {
+            log.error("Chat job {} failed", job.id, e);
+            job.finish(Status.FAILED, null, "I apologize, but I encountered an error while processing your request.", null);
+        } finally {
+            budget.settle();
+            releaseSlot(job.userId);
+        }
+    }
+
+    private void releaseSlot(Long userId) {
+        activeByUser.computeIfPresent(userId, (id, count) -> count <= 1 ? null : count - 1);
+    }
+
+    /**
+     * Current state of a job owned by the user. With waitSeconds > 0 the call blocks until the job
+     * finishes or the wait elapses (long-poll, capped at 30 seconds).
+     */
+    public Optional<ChatJobDTO> getJob(Long userId, String jobId, long waitSeconds) {
+        ChatJob job = jobs.getIfPresent(jobId);
+        if (job == null || !job.userId.equals(userId)) {
+            return Optional.empty();
+        }
+
+        long wait = Math.max(0, Math.min(waitSeconds, MAX_WAIT_SECONDS));
+        if (wait > 0) {
+            try {
+                job.done.get(wait, TimeUnit.SECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                // Still running: return the current state
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return Optional.of(job.toDTO());
+    }
+
+    /**
+     * Cancel a queued or running job; an in-flight generation is aborted
+     */
+    public Optional<ChatJobDTO> cancel(Long userId, String jobId) {
+        ChatJob job = jobs.getIfPresent(jobId);
+        if (job == null || !job.userId.equals(userId)) {
+            return Optional.empty();
+        }
+
+        job.cancel();
+        return Optional.of(job.toDTO());
+    }
+
+    private static final class ChatJob {
+        private final String id;
+        private final Long userId;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final CancellationSignal cancellation = new CancellationSignal();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        // Guarded by this
+        private Status status = Status.QUEUED;
+        private ChatMessageDTO result;
+        private String error;
+        private Long retryAfterSeconds;
+        private LocalDateTime completedAt;
+
+        private ChatJob(String id, Long userId) {
+            this.id = id;
+            this.userId = userId;
+        }
+
+        synchronized boolean start() {
+            if (status != Status.QUEUED) {
+                return false;
+            }
+            status = Status.RUNNING;
+            return true;
+        }
+
+        void complete(ChatMessageDTO result) {
+            finish(Status.COMPLETED, result, null, null);
+        }
+
+        void finish(Status finalStatus, ChatMessageDTO result, String error, Long retryAfterSeconds) {
+            synchronized (this) {
+                if (isFinished()) {
+                    return;
+                }
+                this.status = finalStatus;
+                this.result = result;
+                this.error = error;
+                this.retryAfterSeconds = retryAfterSeconds;
+                this.completedAt = LocalDateTime.now();
+            }
+            done.complete(null);
+        }
+
+        void cancel() {
+            cancellation.cancel();
+            synchronized (this) {
+                // A running job reports CANCELLED itself once the pipeline notices
+                if (status != Status.QUEUED) {
+                    return;
+                }
+            }
+            finish(Status.CANCELLED, null, null, null);
+        }
+
+        private boolean isFinished() {
+            return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+        }
+
+        synchronized ChatJobDTO toDTO() {
+            return ChatJobDTO.builder()
+                    .jobId(id)
+                    .status(status)
+                    .result(result)
+                    .error(error)
+                    .retryAfterSeconds(retryAfterSeconds)
+                    .createdAt(createdAt)
+                    .completedAt(completedAt)
+                    .build();
+        }
+    }
+}
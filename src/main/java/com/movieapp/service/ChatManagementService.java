@@ -4,13 +4,18 @@ import com.movieapp.dto.ChatMessageDTO;
 import com.movieapp.dto.ConversationHistoryDTO;
 import com.movieapp.entity.ChatConversation;
 import com.movieapp.entity.ChatMessage;
+import com.movieapp.entity.User;
 import com.movieapp.repository.ChatConversationRepository;
 import com.movieapp.repository.ChatMessageRepository;
+import com.movieapp.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,33 +27,48 @@ public class ChatManagementService {
 
     private final ChatConversationRepository conversationRepository;
     private final ChatMessageRepository messageRepository;
+    private final UserRepository userRepository;
+    private final ChatResponseCacheService responseCache;
+
+    private static final int MAX_PAGE_SIZE = 200;
 
     /**
-     * Get user's conversation history (single mentor conversation)
+     * Get one page of the user's conversation history (single mentor conversation)
+     * Pages go backwards in time: newest page first, then pass nextBefore and nextBeforeId as the cursor.
+     * Messages within a page are in chronological order. A cursor without beforeId returns the messages
+     * strictly older than before.
      */
-    public ConversationHistoryDTO getUserConversationHistory(Long userId) {
+    public ConversationHistoryDTO getUserConversationHistory(Long userId, LocalDateTime before, Long beforeId,
+                                                             int size) {
         ChatConversation conversation = conversationRepository.findByUserId(userId)
                 .orElse(null);
 
         if (conversation == null) {
-            return ConversationHistoryDTO.builder()
-                    .conversationId(null)
-                    .title("Movie Mentor")
-                    .messages(List.of())
-                    .build();
+            return emptyHistory();
         }
 
-        List<ChatMessage> messages = messageRepository
-                .findByConversationIdOrderByCreatedAtAsc(conversation.getId());
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to know whether an older page exists
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<ChatMessage> newestFirst = before == null
+                ? messageRepository.findLatestByConversation(conversation.getId(), page)
+                : messageRepository.findLatestByConversationBefore(conversation.getId(), before,
+                        beforeId != null ? beforeId : Long.MIN_VALUE, page);
 
-        List<ChatMessageDTO> messageDTOs = messages.stream()
-                .map(this::mapToMessageDTO)
-                .collect(Collectors.toList());
+        boolean hasMore = newestFirst.size() > pageSize;
+        List<ChatMessage> messages = new ArrayList<>(newestFirst.subList(0, Math.min(pageSize, newestFirst.size())));
+        Collections.reverse(messages);
 
         return ConversationHistoryDTO.builder()
                 .conversationId(conversation.getId())
                 .title(conversation.getTitle())
-                .messages(messageDTOs)
+                .messages(messages.stream()
+                        .map(this::mapToMessageDTO)
+                        .collect(Collectors.toList()))
+                .hasMore(hasMore)
+                .nextBefore(hasMore ? messages.get(0).getCreatedAt() : null)
+                .nextBeforeId(hasMore ? messages.get(0).getId() : null)
                 .build();
     }
 
@@ -56,52 +76,46 @@ public class ChatManagementService {
      * Get recent conversation history (last N messages)
      */
     public ConversationHistoryDTO getRecentHistory(Long userId, int limit) {
-        ChatConversation conversation = conversationRepository.findByUserId(userId)
-                .orElse(null);
-
-        if (conversation == null) {
-            return ConversationHistoryDTO.builder()
-                    .conversationId(null)
-                    .title("Movie Mentor")
-                    .messages(List.of())
-                    .build();
-        }
-
-        List<ChatMessage> allMessages = messageRepository
-                .findByConversationIdOrderByCreatedAtAsc(conversation.getId());
-
-        // Get last N messages
-        int start = Math.max(0, allMessages.size() - limit);
-        List<ChatMessage> recentMessages = allMessages.subList(start, allMessages.size());
-
-        List<ChatMessageDTO> messageDTOs = recentMessages.stream()
-                .map(this::mapToMessageDTO)
-                .collect(Collectors.toList());
+        return getUserConversationHistory(userId, null, null, limit);
+    }
 
+    private ConversationHistoryDTO emptyHistory() {
         return ConversationHistoryDTO.builder()
-                .conversationId(conversation.getId())
-                .title(conversation.getTitle())
-                .messages(messageDTOs)
+                .conversationId(null)
+                .title("Movie Mentor")
+                .messages(List.of())
+                .hasMore(false)
                 .build();
     }
 
     /**
      * Clear conversation history (start fresh with mentor)
+     * Two set-based statements in one transaction: no messages are loaded, memory use does not grow with history size
      */
     @Transactional
     public void clearConversationHistory(Long userId) {
-        ChatConversation conversation = conversationRepository.findByUserId(userId)
-                .orElse(null);
+        int deleted = messageRepository.deleteByUserId(userId);
+        conversationRepository.resetHistoryByUserId(userId);
 
-        if (conversation != null) {
-            // Delete all messages
-            messageRepository.deleteAll(conversation.getMessages());
-            conversation.getMessages().clear();
-            conversation.setMessageCount(0);
-            conversationRepository.save(conversation);
+        log.info("Cleared conversation history for user {} ({} messages)", userId, deleted);
+    }
 
-            log.info("Cleared conversation history for user: {}", userId);
+    /**
+     * Opt in or out of the shared chat response cache; opting out also drops answers cached from this user's chats
+     */
+    @Transactional
+    public void setResponseCacheOptOut(Long userId, boolean optOut) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        user.setChatCacheOptOut(optOut);
+        userRepository.save(user);
+
+        if (optOut) {
+            responseCache.evictUser(userId);
         }
+
+        log.info("User {} {} the chat response cache", userId, optOut ? "opted out of" : "opted into");
     }
 
     /**
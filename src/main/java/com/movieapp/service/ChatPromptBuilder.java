@@ -0,0 +1,224 @@
+package com.movieapp.service;
+
+import com.movieapp.service.OllamaLLMService.ChatMessageContext;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Assembles the chat prompt (system prompt + message list) within a token budget.
+ * Instructions, the conversation summary and the current user message are always included;
+ * movie cards (in retrieval order) and recent history (newest first) are packed greedily into the rest.
+ * Tokens are counted with the chat model's tokenizer; the static segments are counted once.
+ *
+ * Layout follows what changes least to what changes most, so Ollama can reuse its KV cache for the
+ * longest common prefix between turns: the byte-identical instructions (system prompt), the rolling
+ * summary, the history that only grows until the next summary fold, then a single user turn carrying
+ * this turn's movie context and the question. The movie context is not a system message: chat templates
+ * gather every system message at the top, right after the instructions, which would break the prefix.
+ */
+@Component
+@Slf4j
+public class ChatPromptBuilder {
+
+    private static final String INSTRUCTIONS = """
+            You are a knowledgeable and passionate movie recommendation assistant with deep understanding of cinema. Your goal is to help users discover movies they'll love by providing thoughtful, detailed recommendations.
+
+            CORE RULES:
+            1. ONLY discuss movies, films, and cinema-related topics
+            2. Use ONLY the movies from the database provided with each question
+            3. Never recommend movies that aren't in the database
+
+            RECOMMENDATION STYLE:
+            1. **Explain WHY** - Always explain why you're recommending a movie
+               - What themes, tone, or style similarities exist?
+               - What specific elements connect it to the user's request?
+               - What makes it special or worth watching?
+
+            2. **Be Conversational** - Write like a knowledgeable friend, not a robot
+               - Use natural language: "I think you'll love...", "If you enjoyed X, then..."
+               - Show enthusiasm when appropriate
+               - Use comparisons to help explain similarities
+
+            3. **Provide Context** - Give relevant details:
+               - Mention director if notable
+               - Reference key themes or plot elements (without major spoilers)
+               - Include the rating if it's high (4+ stars)
+               - Mention genre when relevant
+
+            4. **Format Naturally**:
+               - Start with a brief introduction addressing their request
+               - Present 3-5 movies with explanations
+               - Use conversational transitions between recommendations
+               - End with an open invitation for follow-up questions
+
+            EXAMPLE FORMAT:
+            "Since you loved Interstellar's exploration of time and space, I have some great recommendations:
+
+            **Arrival** is a perfect match - it shares Interstellar's intellectual approach to sci-fi, dealing with time perception and communication in deeply emotional ways. Like Interstellar, it's more about ideas and human connection than action. Rating: 4.2/5
+
+            **The Martian** captures that same sense of wonder about space and human resilience. While it's lighter in tone than Interstellar, it shares the scientific accuracy and the theme of survival against impossible odds. Rating: 4.5/5"
+
+            """;
+
+    private static final String SUMMARY_HEADER = "=== CONVERSATION SO FAR ===\n";
+
+    private static final String MOVIES_HEADER = "=== AVAILABLE MOVIES IN DATABASE ===\n\n";
+
+    private static final String CLOSING = """
+
+            Now, based on the movies available above, provide thoughtful recommendations that explain WHY each movie matches what the user is looking for. Remember to be specific, insightful, and conversational.
+            """;
+
+    private static final String QUESTION_HEADER = "\n=== USER QUESTION ===\n";
+
+    // Role markers and separators Ollama's chat template adds around each message
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private final ChatTokenizer tokenizer;
+    private final int tokenBudget;
+    private final double movieShare;
+    private final int maxMovies;
+    private final int staticTokens;
+
+    private final DistributionSummary totalTokens;
+    private final DistributionSummary movieSectionTokens;
+    private final DistributionSummary historySectionTokens;
+    private final DistributionSummary userSectionTokens;
+
+    public ChatPromptBuilder(
+            ChatTokenizer tokenizer,
+            MeterRegistry meterRegistry,
+            @Value("${chat.prompt.token-budget:3072}") int tokenBudget,
+            @Value("${chat.prompt.movie-share:0.6}") double movieShare,
+            @Value("${chat.prompt.max-movies:15}") int maxMovies) {
+
+        this.tokenizer = tokenizer;
+        this.tokenBudget = tokenBudget;
+        this.movieShare = movieShare;
+        this.maxMovies = maxMovies;
+        // Instructions and the user turn (movie context + question) each add a message
+        this.staticTokens = tokenizer.count(INSTRUCTIONS) + tokenizer.count(MOVIES_HEADER)
+                + tokenizer.count(CLOSING) + tokenizer.count(QUESTION_HEADER) + 2 * MESSAGE_OVERHEAD_TOKENS;
+
+        this.totalTokens = promptTokens(meterRegistry, "total");
+        this.movieSectionTokens = promptTokens(meterRegistry, "movies");
+        this.historySectionTokens = promptTokens(meterRegistry, "history");
+        this.userSectionTokens = promptTokens(meterRegistry, "user");
+    }
+
+    private static DistributionSummary promptTokens(MeterRegistry meterRegistry, String section) {
+        return DistributionSummary.builder("chat.prompt.tokens")
+                .description("Prompt tokens sent to the chat model per request")
+                .baseUnit("tokens")
+                .tag("section", section)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Build the prompt for one turn
+     *
+     * @param summary      rolling summary of older turns, may be null
+     * @param movieEntries rendered movie context entries, most relevant first
+     * @param history      messages not yet summarized, in chronological order (excluding the current message)
+     * @param userMessage  the current user message
+     */
+    public ChatPrompt build(String summary,
+                            List<String> movieEntries,
+                            List<ChatMessageContext> history,
+                            String userMessage) {
+
+        String summarySection = summary != null && !summary.isBlank()
+                ? SUMMARY_HEADER + summary.strip()
+                : "";
+
+        int userTokens = tokenizer.count(userMessage);
+        int summaryTokens = summarySection.isEmpty() ? 0 : tokenizer.count(summarySection) + MESSAGE_OVERHEAD_TOKENS;
+        int used = staticTokens + summaryTokens + userTokens;
+        int remaining = Math.max(0, tokenBudget - used);
+
+        // 1. Movie cards up to their share of the remaining budget (at least one if it fits at all)
+        List<String> movies = new ArrayList<>();
+        int movieTokens = 0;
+        int movieAllowance = (int) (remaining * movieShare);
+        int next = 0;
+        for (; next < movieEntries.size() && movies.size() < maxMovies; next++) {
+            int cost = tokenizer.countCached(movieEntries.get(next));
+            boolean fits = movies.isEmpty() ? cost <= remaining : movieTokens + cost <= movieAllowance;
+            if (!fits) {
+                break;
+            }
+            movies.add(movieEntries.get(next));
+            movieTokens += cost;
+        }
+        remaining -= movieTokens;
+
+        // 2. History, newest first, with what is left
+        List<ChatMessageContext> keptHistory = new ArrayList<>();
+        int historyTokens = 0;
+        for (int i = history.size() - 1; i >= 0; i--) {
+            int cost = tokenizer.countCached(history.get(i).getContent()) + MESSAGE_OVERHEAD_TOKENS;
+            if (cost > remaining) {
+                break;
+            }
+            keptHistory.add(history.get(i));
+            historyTokens += cost;
+            remaining -= cost;
+        }
+        Collections.reverse(keptHistory);
+
+        // 3. Short histories leave room for more movies
+        for (; next < movieEntries.size() && movies.size() < maxMovies; next++) {
+            int cost = tokenizer.countCached(movieEntries.get(next));
+            if (cost > remaining) {
+                break;
+            }
+            movies.add(movieEntries.get(next));
+            movieTokens += cost;
+            remaining -= cost;
+        }
+
+        StringBuilder userTurn = new StringBuilder(MOVIES_HEADER);
+        for (int i = 0; i < movies.size(); i++) {
+            userTurn.append("Movie ").append(i + 1).append(":\n")
+                    .append(movies.get(i))
+                    .append("\n");
+        }
+        userTurn.append(CLOSING)
+                .append(QUESTION_HEADER)
+                .append(userMessage);
+
+        List<ChatMessageContext> messages = new ArrayList<>();
+        if (!summarySection.isEmpty()) {
+            // Changes only when older turns are folded, so it stays part of the shared prefix in between
+            messages.add(new ChatMessageContext("system", summarySection));
+        }
+        messages.addAll(keptHistory);
+        messages.add(new ChatMessageContext("user", userTurn.toString()));
+
+        int promptTokens = used + movieTokens + historyTokens;
+        totalTokens.record(promptTokens);
+        movieSectionTokens.record(movieTokens);
+        historySectionTokens.record(historyTokens);
+        userSectionTokens.record(userTokens);
+
+        log.debug("Prompt {} tokens (budget {}): {}/{} movies, {}/{} history messages, summary={}",
+                promptTokens, tokenBudget, movies.size(), movieEntries.size(),
+                keptHistory.size(), history.size(), !summarySection.isEmpty());
+
+        return new ChatPrompt(INSTRUCTIONS, messages, promptTokens,
+                movies.size(), keptHistory.size());
+    }
+
+    public record ChatPrompt(String systemPrompt,
+                             List<ChatMessageContext> messages,
+                             int promptTokens,
+                             int moviesIncluded,
+                             int historyIncluded) {}
+}
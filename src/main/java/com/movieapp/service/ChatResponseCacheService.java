@@ -0,0 +1,191 @@
+package com.movieapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Semantic response cache for the movie mentor.
+ * Answers are grouped by the set of movies retrieved for the question; within a group a new question reuses
+ * a stored answer when its embedding is within the cosine similarity threshold of the cached question.
+ * Entries expire after a TTL, are evicted by total size, and are dropped when the catalogue changes.
+ * Answers are shared across users, so the caller only stores and looks up turns whose prompt held no
+ * conversation summary and no history: the answer then depends on the question and the movies alone.
+ */
+@Service
+@Slf4j
+public class ChatResponseCacheService {
+
+    private final CatalogueMatcherService catalogueMatcher;
+    private final boolean enabled;
+    private final double similarityThreshold;
+    private final int maxEntriesPerMovieSet;
+    private final int minQueryWords;
+
+    // Retrieved movie set -> cached answers for it, newest first (immutable lists, weighed by size)
+    private final Cache<String, List<Entry>> cache;
+    private volatile String catalogueVersion;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public ChatResponseCacheService(
+            CatalogueMatcherService catalogueMatcher,
+            MeterRegistry meterRegistry,
+            @Value("${chat.response-cache.enabled:true}") boolean enabled,
+            @Value("${chat.response-cache.similarity-threshold:0.95}") double similarityThreshold,
+            @Value("${chat.response-cache.max-entries:5000}") long maxEntries,
+            @Value("${chat.response-cache.max-entries-per-movie-set:8}") int maxEntriesPerMovieSet,
+            @Value("${chat.response-cache.ttl-minutes:360}") long ttlMinutes,
+            @Value("${chat.response-cache.min-query-words:4}") int minQueryWords) {
+
+        this.catalogueMatcher = catalogueMatcher;
+        this.enabled = enabled;
+        this.similarityThreshold = similarityThreshold;
+        this.maxEntriesPerMovieSet = maxEntriesPerMovieSet;
+        this.minQueryWords = minQueryWords;
+        this.catalogueVersion = catalogueMatcher.getCatalogueVersion();
+
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxEntries)
+                .weigher((String key, List<Entry> entries) -> entries.size())
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+
+        this.hits = Counter.builder("chat.response.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("chat.response.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("chat.response.cache.size", cache, Cache::estimatedSize)
+                .description("Movie sets with cached answers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether a question may be answered from / stored into the cache.
+     * Very short messages are usually follow-ups ("and the second one?") whose answer depends on the conversation.
+     */
+    public boolean isCacheable(String query, float[] queryEmbedding, List<Long> retrievedMovieIds) {
+        return enabled
+                && retrievedMovieIds != null && !retrievedMovieIds.isEmpty()
+                && queryEmbedding != null && norm(queryEmbedding) > 0
+                && query.strip().split("\\s+").length >= minQueryWords;
+    }
+
+    /**
+     * Cached answer for a near-identical question over the same retrieved movies, if any
+     */
+    public Optional<String> lookup(float[] queryEmbedding, List<Long> retrievedMovieIds) {
+        checkCatalogueVersion();
+
+        List<Entry> entries = cache.getIfPresent(key(retrievedMovieIds));
+        if (entries != null) {
+            float[] query = normalize(queryEmbedding);
+            for (Entry entry : entries) {
+                if (entry.embedding().length == query.length
+                        && dot(query, entry.embedding()) >= similarityThreshold) {
+                    hits.increment();
+                    return Optional.of(entry.response());
+                }
+            }
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Remember a freshly generated answer
+     */
+    public void store(Long userId, float[] queryEmbedding, List<Long> retrievedMovieIds, String response) {
+        checkCatalogueVersion();
+
+        Entry entry = new Entry(normalize(queryEmbedding), response, userId);
+        cache.asMap().compute(key(retrievedMovieIds), (key, existing) -> {
+            List<Entry> updated = new ArrayList<>();
+            updated.add(entry);
+            if (existing != null) {
+                existing.stream()
+                        .limit(maxEntriesPerMovieSet - 1L)
+                        .forEach(updated::add);
+            }
+            return List.copyOf(updated);
+        });
+    }
+
+    /**
+     * Drop every answer generated for a user (called when the user opts out)
+     */
+    public void evictUser(Long userId) {
+        cache.asMap().replaceAll((key, entries) -> entries.stream()
+                .filter(entry -> !entry.userId().equals(userId))
+                .toList());
+        cache.asMap().values().removeIf(List::isEmpty);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Answers may describe movies that changed; start over when the catalogue fingerprint moves
+     */
+    private void checkCatalogueVersion() {
+        String current = catalogueMatcher.getCatalogueVersion();
+        if (!Objects.equals(current, catalogueVersion)) {
+            synchronized (this) {
+                if (!Objects.equals(current, catalogueVersion)) {
+                    log.info("Catalogue changed, clearing {} cached chat answer groups", cache.estimatedSize());
+                    cache.invalidateAll();
+                    catalogueVersion = current;
+                }
+            }
+        }
+    }
+
+    // The same movies in a different rank order give the same answer group
+    private String key(List<Long> movieIds) {
+        return movieIds.stream()
+                .sorted()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    private float[] normalize(float[] vector) {
+        double norm = norm(vector);
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private double norm(float[] vector) {
+        double sum = 0.0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        return Math.sqrt(sum);
+    }
+
+    private double dot(float[] a, float[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private record Entry(float[] embedding, String response, Long userId) {}
+}
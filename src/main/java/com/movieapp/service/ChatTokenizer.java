@@ -0,0 +1,79 @@
+package com.movieapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Local BPE token counter for the configured chat model.
+ * Llama 3 uses a tiktoken BPE whose vocabulary extends cl100k_base, so cl100k counts track it closely
+ * (slightly high, which errs on the safe side of the budget); gpt-oss uses o200k_base.
+ * SentencePiece models (Mistral, Gemma, Llama 2) have no bundled vocabulary: they are counted with
+ * cl100k_base times chat.prompt.tokenizer.scale.
+ */
+@Component
+@Slf4j
+public class ChatTokenizer {
+
+    private final Encoding encoding;
+    private final double scale;
+
+    // Counts of texts that recur across turns (movie cards, history messages)
+    private final Cache<String, Integer> counts;
+
+    public ChatTokenizer(
+            @Value("${ollama.chat-model:llama3.2}") String chatModel,
+            @Value("${chat.prompt.tokenizer.encoding:}") String encodingOverride,
+            @Value("${chat.prompt.tokenizer.scale:1.0}") double scale,
+            @Value("${chat.prompt.tokenizer.cache-size:20000}") long cacheSize) {
+
+        EncodingType type = encodingOverride.isBlank()
+                ? encodingFor(chatModel)
+                : EncodingType.fromName(encodingOverride)
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown tokenizer encoding: " + encodingOverride));
+
+        this.encoding = Encodings.newDefaultEncodingRegistry().getEncoding(type);
+        this.scale = scale;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+
+        log.info("Chat tokenizer for model {}: {} (scale {})", chatModel, type.getName(), scale);
+    }
+
+    static EncodingType encodingFor(String model) {
+        String name = model.toLowerCase(Locale.ROOT);
+        if (name.startsWith("gpt-oss")) {
+            return EncodingType.O200K_BASE;
+        }
+        return EncodingType.CL100K_BASE;
+    }
+
+    /**
+     * Token count of a text (special-token markers in user text are counted as plain text)
+     */
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int tokens = encoding.countTokensOrdinary(text);
+        return scale == 1.0 ? tokens : (int) Math.ceil(tokens * scale);
+    }
+
+    /**
+     * Token count of a text that is likely to be counted again
+     */
+    public int countCached(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return counts.get(text, this::count);
+    }
+}
@@ -0,0 +1,198 @@
+package com.movieapp.service;
+
+import com.movieapp.entity.ChatConversation;
+import com.movieapp.entity.ChatMessage;
+import com.movieapp.repository.ChatConversationRepository;
+import com.movieapp.repository.ChatMessageRepository;
+import com.movieapp.service.OllamaLLMService.ChatMessageContext;
+import com.movieapp.util.AdaptiveConcurrencyLimiter.Priority;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conversation memory: folds turns that fall out of the recent history window into a stored running summary.
+ * Runs asynchronously after a response has been saved, at background priority on the Ollama limiter,
+ * so the prompt for long conversations carries a short summary instead of an ever-growing transcript.
+ */
+@Service
+@Slf4j
+public class ConversationSummaryService {
+
+    private static final String SUMMARY_INSTRUCTIONS = """
+            You maintain the memory of a conversation between a user and a movie recommendation assistant.
+            Merge the existing summary with the new turns into one updated summary.
+            Keep: the user's tastes, likes and dislikes, movies already recommended or discussed, open requests.
+            Drop: greetings, filler and repeated details.
+            Write plain prose in the third person, at most %d words. Reply with the summary only.
+            """;
+
+    private final ChatConversationRepository conversationRepository;
+    private final ChatMessageRepository messageRepository;
+    private final OllamaLLMService llmService;
+    private final AsyncTaskExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int recentMessages;
+    private final int triggerMessages;
+    private final int maxFoldMessages;
+    private final int maxSummaryWords;
+
+    // Conversations with a summary in progress (one at a time per conversation)
+    private final Set<Long> inProgress = ConcurrentHashMap.newKeySet();
+
+    public ConversationSummaryService(
+            ChatConversationRepository conversationRepository,
+            ChatMessageRepository messageRepository,
+            OllamaLLMService llmService,
+            @Qualifier("chatStreamExecutor") AsyncTaskExecutor executor,
+            PlatformTransactionManager transactionManager,
+            @Value("${chat.summary.enabled:true}") boolean enabled,
+            @Value("${chat.max-context-messages:10}") int recentMessages,
+            @Value("${chat.summary.trigger-messages:6}") int triggerMessages,
+            @Value("${chat.summary.max-fold-messages:30}") int maxFoldMessages,
+            @Value("${chat.summary.max-words:200}") int maxSummaryWords) {
+
+        this.conversationRepository = conversationRepository;
+        this.messageRepository = messageRepository;
+        this.llmService = llmService;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.recentMessages = recentMessages;
+        this.triggerMessages = triggerMessages;
+        this.maxFoldMessages = maxFoldMessages;
+        this.maxSummaryWords = maxSummaryWords;
+    }
+
+    /**
+     * Messages for the chat prompt that the summary does not cover yet, oldest first.
+     * A fold starts once triggerMessages have piled up beyond the recent window, so the unsummarized tail
+     * stays below recentMessages + triggerMessages and is read whole: it only grows between folds and keeps
+     * earlier turns a stable prompt prefix. The read is capped at that bound (newest messages win) for when
+     * a fold lags behind, and at recentMessages when summaries are disabled.
+     */
+    public List<ChatMessage> loadUnsummarizedHistory(ChatConversation conversation) {
+        long summarizedThrough = conversation.getSummaryThroughMessageId() != null
+                ? conversation.getSummaryThroughMessageId()
+                : 0L;
+        int maxMessages = enabled ? recentMessages + triggerMessages : recentMessages;
+
+        List<ChatMessage> history = new ArrayList<>(messageRepository.findLatestByConversationAfter(
+                conversation.getId(), summarizedThrough, PageRequest.of(0, maxMessages)));
+        Collections.reverse(history);
+        return history;
+    }
+
+    /**
+     * Schedule a summary update; returns immediately. Skipped if one is already running for the conversation.
+     */
+    public void summarizeAsync(Long conversationId) {
+        if (!enabled || !inProgress.add(conversationId)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    summarize(conversationId);
+                } catch (Exception e) {
+                    log.warn("Could not update summary for conversation {}: {}", conversationId, e.getMessage());
+                } finally {
+                    inProgress.remove(conversationId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            inProgress.remove(conversationId);
+            log.debug("Summary for conversation {} skipped, executor saturated", conversationId);
+        }
+    }
+
+    /**
+     * Fold the messages older than the recent window into the summary once at least triggerMessages have piled up
+     * Reads and writes in short transactions; the model call runs outside them.
+     */
+    void summarize(Long conversationId) throws IOException {
+        SummaryInput input = transactionTemplate.execute(status -> loadInput(conversationId));
+        if (input == null) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        String summary = llmService.complete(
+                List.of(new ChatMessageContext("user", input.prompt())),
+                SUMMARY_INSTRUCTIONS.formatted(maxSummaryWords),
+                Priority.BACKGROUND,
+                "summary"
+        ).strip();
+
+        if (summary.isEmpty()) {
+            log.warn("Empty summary generated for conversation {}", conversationId);
+            return;
+        }
+
+        Integer updated = transactionTemplate.execute(status -> conversationRepository.updateSummary(
+                conversationId, summary, input.throughMessageId(), input.previousThroughId()));
+
+        if (updated == null || updated == 0) {
+            log.debug("Summary for conversation {} superseded, discarding", conversationId);
+        } else {
+            log.info("Folded {} messages into summary of conversation {} in {} ms",
+                    input.foldedMessages(), conversationId, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private SummaryInput loadInput(Long conversationId) {
+        ChatConversation conversation = conversationRepository.findById(conversationId).orElse(null);
+        if (conversation == null) {
+            return null;
+        }
+
+        long previousThroughId = conversation.getSummaryThroughMessageId() != null
+                ? conversation.getSummaryThroughMessageId()
+                : 0L;
+
+        // Unsummarized messages, oldest first; the newest recentMessages stay verbatim in the prompt
+        List<ChatMessage> pending = messageRepository.findByConversationAfter(
+                conversationId, previousThroughId, PageRequest.of(0, recentMessages + maxFoldMessages));
+
+        int foldCount = pending.size() - recentMessages;
+        if (foldCount < triggerMessages) {
+            return null;
+        }
+
+        StringBuilder prompt = new StringBuilder();
+        if (conversation.getSummary() != null && !conversation.getSummary().isBlank()) {
+            prompt.append("EXISTING SUMMARY:\n").append(conversation.getSummary()).append("\n\n");
+        }
+        prompt.append("NEW TURNS:\n");
+        for (ChatMessage message : pending.subList(0, foldCount)) {
+            prompt.append(message.getRole().name().toLowerCase())
+                    .append(": ")
+                    .append(message.getContent())
+                    .append("\n");
+        }
+
+        return new SummaryInput(
+                prompt.toString(),
+                pending.get(foldCount - 1).getId(),
+                previousThroughId,
+                foldCount
+        );
+    }
+
+    private record SummaryInput(String prompt, Long throughMessageId, Long previousThroughId, int foldedMessages) {}
+}
@@ -1,20 +1,37 @@
 package com.movieapp.service;
 
 import com.movieapp.dto.ChatMessageDTO;
-import com.movieapp.dto.MovieDTO;
 import com.movieapp.dto.VectorSimilarityResult;
 import com.movieapp.entity.*;
+import com.movieapp.exception.DownstreamBusyException;
 import com.movieapp.repository.ChatConversationRepository;
 import com.movieapp.repository.ChatMessageRepository;
 import com.movieapp.repository.MovieRepository;
 import com.movieapp.repository.UserRepository;
+import com.movieapp.service.MovieContextCardService.ContextCard;
+import com.movieapp.util.AdaptiveConcurrencyLimiter.Priority;
+import com.movieapp.util.CancellationSignal;
+import com.movieapp.util.LlmBudgetLimiter.Reservation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -24,135 +41,424 @@ import java.util.stream.Collectors;
 public class MovieChatService {
 
     private final OllamaLLMService llmService;
+    private final OllamaEmbeddingService embeddingService;
+    private final TopicClassifierService topicClassifier;
     private final VectorSearchService vectorSearchService;
+    private final MovieContextCardService contextCardService;
+    private final ChatPromptBuilder promptBuilder;
+    private final ChatTokenizer tokenizer;
+    private final ConversationSummaryService summaryService;
+    private final CatalogueMatcherService catalogueMatcher;
+    private final ChatResponseCacheService responseCache;
     private final MovieRepository movieRepository;
     private final ChatConversationRepository conversationRepository;
     private final ChatMessageRepository messageRepository;
     private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    @Qualifier("chatStreamExecutor")
+    private final AsyncTaskExecutor chatStreamExecutor;
+
+    @Qualifier("chatRetrievalExecutor")
+    private final AsyncTaskExecutor chatRetrievalExecutor;
+
+    @Value("${chat.stream.timeout-ms:180000}")
+    private final long streamTimeoutMs;
 
-    private static final int MAX_CONTEXT_MESSAGES = 10;
     private static final int MAX_RETRIEVED_MOVIES = 20;
 
     /**
      * Main chat endpoint with RAG pipeline - Single conversation per user
+     * Remote calls (embedding, generation) run outside any transaction;
+     * DB work is done in short transactions (history, prepare, save) so a connection is held for milliseconds,
+     * not seconds. Each stage is recorded in the chat.pipeline.stage timer.
+     * Prompt and answer tokens of a generated reply are charged to the user's LLM budget; the caller settles it.
      */
-    @Transactional
-    public ChatMessageDTO chat(Long userId, String userMessage) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public ChatMessageDTO chat(Long userId, String userMessage, Reservation budget) {
+        return chat(userId, userMessage, budget, new CancellationSignal());
+    }
 
+    /**
+     * Chat that can be cancelled (async chat jobs): checked between stages, and cancelling
+     * during generation aborts the Ollama HTTP call. Throws CancellationException once cancelled.
+     */
+    public ChatMessageDTO chat(Long userId, String userMessage, Reservation budget, CancellationSignal cancellation) {
         log.info("Processing chat for user {}: {}", userId, userMessage);
 
-        // Step 1: Check if query is about movies (topic validation)
-        if (!isMovieRelatedQuery(userMessage)) {
+        // Steps 1-4: Embedding, topic check, retrieval and prompt assembly (history loads in parallel)
+        Retrieval retrieval = retrieve(userId, userMessage, cancellation);
+        if (retrieval.prepared() == null) {
             log.info("Off-topic query detected: {}", userMessage);
             return buildOffTopicResponse();
         }
 
-        // Step 2: Get or create user's single conversation
+        PreparedChat prepared = retrieval.prepared();
+        float[] queryEmbedding = retrieval.queryEmbedding();
+        boolean cacheable = isCacheable(prepared, userMessage, queryEmbedding);
+        cancellation.throwIfCancelled();
+
+        // Step 5: Reuse a cached answer for a near-identical question, otherwise generate with the LLM (no transaction)
+        Optional<String> cached = cacheable
+                ? responseCache.lookup(queryEmbedding, prepared.movieIds())
+                : Optional.empty();
+
+        String assistantResponse;
+        if (cached.isPresent()) {
+            assistantResponse = cached.get();
+        } else {
+            Timer.Sample generation = Timer.start();
+            try {
+                budget.charge(prepared.promptTokens());
+                assistantResponse = llmService.complete(prepared.messages(), prepared.systemPrompt(),
+                        Priority.INTERACTIVE, cancellation);
+                budget.charge(tokenizer.count(assistantResponse));
+                if (cacheable) {
+                    responseCache.store(userId, queryEmbedding, prepared.movieIds(), assistantResponse);
+                }
+            } catch (IOException e) {
+                cancellation.throwIfCancelled();
+                log.error("Error chatting with Ollama: {}", e.getMessage(), e);
+                assistantResponse = "I apologize, but I encountered an error while processing your request.";
+            } finally {
+                generation.stop(stageTimer("generation"));
+            }
+        }
+
+        // Step 6: Short transaction - persist assistant message
+        String response = assistantResponse;
+        ChatMessageDTO result = timed("save", () ->
+                transactionTemplate.execute(status -> saveAssistantResponse(prepared, response)));
+
+        // Step 7: Fold older turns into the conversation summary (async)
+        summaryService.summarizeAsync(prepared.conversationId());
+        return result;
+    }
+
+    /**
+     * Streaming chat: returns an SSE emitter immediately and generates on the chat stream pool.
+     * Events: "token" (content chunk), "done" (saved ChatMessageDTO), "error" (message).
+     * No DB connection is held while tokens are streaming.
+     * The LLM budget is charged for the prompt and every streamed token, and settled when the stream ends.
+     */
+    public SseEmitter chatStream(Long userId, String userMessage, Reservation budget) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+
+        emitter.onTimeout(() -> cancelled.set(true));
+        emitter.onError(e -> cancelled.set(true));
+
+        try {
+            chatStreamExecutor.execute(() -> streamResponse(userId, userMessage, budget, emitter, cancelled));
+        } catch (TaskRejectedException e) {
+            log.warn("Chat stream pool saturated, rejecting stream for user {}", userId);
+            budget.settle();
+            sendEvent(emitter, "error", "The movie mentor is busy right now. Please try again shortly.");
+            emitter.complete();
+        }
+
+        return emitter;
+    }
+
+    private void streamResponse(Long userId, String userMessage, Reservation budget,
+                                SseEmitter emitter, AtomicBoolean cancelled) {
+        try {
+            log.info("Processing streaming chat for user {}: {}", userId, userMessage);
+
+            // Steps 1-4: Embedding, topic check, retrieval and prompt assembly (history loads in parallel)
+            Retrieval retrieval = retrieve(userId, userMessage, new CancellationSignal());
+            if (retrieval.prepared() == null) {
+                log.info("Off-topic query detected: {}", userMessage);
+                sendEvent(emitter, "done", buildOffTopicResponse());
+                emitter.complete();
+                return;
+            }
+
+            PreparedChat prepared = retrieval.prepared();
+            float[] queryEmbedding = retrieval.queryEmbedding();
+            boolean cacheable = isCacheable(prepared, userMessage, queryEmbedding);
+
+            // Step 5: Cached answer as a single chunk, otherwise stream tokens from Ollama (no transaction)
+            Optional<String> cached = cacheable
+                    ? responseCache.lookup(queryEmbedding, prepared.movieIds())
+                    : Optional.empty();
+
+            String assistantResponse;
+            if (cached.isPresent()) {
+                assistantResponse = cached.get();
+                sendEvent(emitter, "token", assistantResponse);
+            } else {
+                Timer.Sample generation = Timer.start();
+                StringBuilder streamed = new StringBuilder();
+                try {
+                    budget.charge(prepared.promptTokens());
+                    assistantResponse = llmService.chatStream(prepared.messages(), prepared.systemPrompt(), token -> {
+                        if (cancelled.get()) {
+                            throw new UncheckedIOException(new IOException("Client disconnected"));
+                        }
+                        streamed.append(token);
+                        sendEvent(emitter, "token", token);
+                    });
+                } finally {
+                    generation.stop(stageTimer("generation"));
+                    // Tokens generated before a disconnect were paid for by the model all the same
+                    budget.charge(tokenizer.count(streamed.toString()));
+                }
+                if (cacheable) {
+                    responseCache.store(userId, queryEmbedding, prepared.movieIds(), assistantResponse);
+                }
+            }
+
+            // Step 6: Short transaction - persist assistant message
+            ChatMessageDTO result = timed("save", () -> transactionTemplate.execute(status ->
+                    saveAssistantResponse(prepared, assistantResponse)));
+
+            sendEvent(emitter, "done", result);
+            emitter.complete();
+
+            // Step 7: Fold older turns into the conversation summary (async)
+            summaryService.summarizeAsync(prepared.conversationId());
+
+        } catch (UncheckedIOException e) {
+            log.info("Chat stream for user {} aborted: {}", userId, e.getCause().getMessage());
+            emitter.complete();
+        } catch (DownstreamBusyException e) {
+            log.warn("Chat stream for user {} rejected: {}", userId, e.getMessage());
+            try {
+                emitter.send(SseEmitter.event().name("error")
+                        .reconnectTime(e.getRetryAfterSeconds() * 1000)
+                        .data("The movie mentor is busy right now. Please try again in "
+                                + e.getRetryAfterSeconds() + " seconds."));
+            } catch (IOException | IllegalStateException ignored) {
+                // Client already gone
+            }
+            emitter.complete();
+        } catch (Exception e) {
+            log.error("Error streaming chat for user {}", userId, e);
+            try {
+                emitter.send(SseEmitter.event().name("error")
+                        .data("I apologize, but I encountered an error while processing your request."));
+            } catch (IOException | IllegalStateException ignored) {
+                // Client already gone
+            }
+            emitter.complete();
+        } finally {
+            budget.settle();
+        }
+    }
+
+    /**
+     * Send an SSE event; failures (client disconnected) abort the generation
+     */
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (IllegalStateException e) {
+            throw new UncheckedIOException(new IOException("Emitter already completed", e));
+        }
+    }
+
+    /**
+     * Steps 1-4 of the RAG pipeline as a small dependency graph:
+     * <pre>
+     *   embedding --> topic check --> vector search --+
+     *   history load (parallel) ----------------------+--> prepare (save message, hydrate cards, build prompt)
+     * </pre>
+     * The history load runs next to the embedding call, so time before generation is embedding + search + prepare.
+     * Returns a retrieval without a prepared chat for off-topic queries.
+     */
+    private Retrieval retrieve(Long userId, String userMessage, CancellationSignal cancellation) {
+        long start = System.nanoTime();
+
+        CompletableFuture<ConversationContext> context = CompletableFuture.supplyAsync(
+                () -> timed("history", () -> transactionTemplate.execute(status -> loadConversationContext(userId))),
+                chatRetrievalExecutor);
+
+        // Step 1: Embed the query once - shared by topic validation and retrieval (no transaction)
+        float[] queryEmbedding = timed("embedding", () -> embeddingService.generateEmbedding(userMessage));
+        cancellation.throwIfCancelled();
+
+        // Step 2: Check if query is about movies (local classifier, no model call)
+        if (!isMovieRelatedQuery(userMessage, queryEmbedding)) {
+            return new Retrieval(queryEmbedding, null);
+        }
+
+        // Step 3: Vector retrieval with the same embedding
+        List<Long> candidateMovieIds = timed("search", () -> searchRelevantMovieIds(queryEmbedding));
+        cancellation.throwIfCancelled();
+
+        // Step 4: Short transaction - save user message, hydrate movie cards in one batch, build prompt
+        ConversationContext conversation = await(context);
+        PreparedChat prepared = timed("prepare", () -> transactionTemplate.execute(status ->
+                prepareChat(conversation, userMessage, candidateMovieIds)));
+
+        log.debug("Retrieval for user {} finished in {} ms", userId, (System.nanoTime() - start) / 1_000_000);
+        return new Retrieval(queryEmbedding, prepared);
+    }
+
+    /**
+     * Load (or create) the user's conversation with its summary and recent history
+     * Runs in its own short transaction, concurrently with the query embedding
+     */
+    private ConversationContext loadConversationContext(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
         ChatConversation conversation = getOrCreateUserConversation(user);
 
-        // Step 3: Save user message
-        ChatMessage userMsg = saveMessage(conversation, MessageRole.USER, userMessage, false);
+        return new ConversationContext(
+                conversation.getId(),
+                conversation.getSummary(),
+                loadRecentHistory(conversation),
+                !Boolean.TRUE.equals(user.getChatCacheOptOut())
+        );
+    }
 
-        // Step 4: Retrieve relevant movies (RAG retrieval)
-        List<Movie> relevantMovies = retrieveRelevantMovies(userMessage);
+    /**
+     * Save the user message, load retrieved movies and assemble the prompt within the token budget
+     * Must run inside a transaction (stale context cards are re-rendered from movie collections)
+     */
+    private PreparedChat prepareChat(ConversationContext context, String userMessage, List<Long> candidateMovieIds) {
+        ChatConversation conversation = conversationRepository.getReferenceById(context.conversationId());
 
-        // Step 5: Build context with conversation history and retrieved movies
-        String context = buildContext(conversation, relevantMovies);
+        // History was read before saving the new message so it is not sent to the model twice
+        saveMessage(conversation, MessageRole.USER, userMessage, false);
 
-        // Step 6: Generate response using LLM
-        String assistantResponse = generateResponse(conversation, userMessage, context);
+        List<ContextCard> relevantMovies = loadRelevantMovies(userMessage, candidateMovieIds);
 
-        // Step 7: Extract movie IDs from response
-        List<Long> referencedMovieIds = extractMovieIds(assistantResponse, relevantMovies);
+        ChatPromptBuilder.ChatPrompt prompt = promptBuilder.build(
+                context.summary(),
+                relevantMovies.stream().map(this::renderMovieEntry).toList(),
+                context.history(),
+                userMessage
+        );
 
-        // Step 8: Save assistant message
-        ChatMessage assistantMsg = saveMessage(conversation, MessageRole.ASSISTANT,
-                assistantResponse, false);
-        assistantMsg.setReferencedMovieIds(referencedMovieIds);
-        messageRepository.save(assistantMsg);
+        return new PreparedChat(
+                context.conversationId(),
+                prompt.messages(),
+                prompt.systemPrompt(),
+                relevantMovies.stream()
+                        .map(card -> new MovieRef(card.movieId(), card.title()))
+                        .toList(),
+                prompt.promptTokens(),
+                // Shared answers must not carry another user's conversation: only turns whose prompt had none
+                candidateMovieIds != null && context.responseCacheAllowed()
+                        && prompt.historyIncluded() == 0
+                        && (context.summary() == null || context.summary().isBlank())
+        );
+    }
 
-        conversationRepository.save(conversation);
+    private <T> T timed(String stage, Supplier<T> step) {
+        Timer.Sample sample = Timer.start();
+        try {
+            return step.get();
+        } finally {
+            sample.stop(stageTimer(stage));
+        }
+    }
 
-        // Step 9: Build response with suggested movies
-        List<MovieDTO> suggestedMovies = relevantMovies.stream()
-                .limit(10)
-                .map(this::mapToMovieDTO)
-                .collect(Collectors.toList());
+    private Timer stageTimer(String stage) {
+        return Timer.builder("chat.pipeline.stage")
+                .description("Duration of one stage of the chat pipeline")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Join a pipeline future, rethrowing the original exception (e.g. DownstreamBusyException)
+     */
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Persist the assistant reply with the movies it references
+     */
+    private ChatMessageDTO saveAssistantResponse(PreparedChat prepared, String assistantResponse) {
+        ChatConversation conversation = conversationRepository.getReferenceById(prepared.conversationId());
+
+        List<Long> referencedMovieIds = extractMovieIds(assistantResponse, prepared.movies());
+
+        ChatMessage assistantMsg = saveMessage(conversation, MessageRole.ASSISTANT, assistantResponse, false);
+        assistantMsg.setReferencedMovieIds(referencedMovieIds);
+        messageRepository.save(assistantMsg);
 
         return ChatMessageDTO.builder()
                 .id(assistantMsg.getId())
                 .content(assistantResponse)
+                .referencedMovieIds(referencedMovieIds)
                 .isOffTopic(false)
                 .role(MessageRole.ASSISTANT)
-                //.suggestedMovies(suggestedMovies)
                 .createdAt(LocalDateTime.now())
                 .build();
     }
 
+    /**
+     * Semantic cache applies to vector-retrieved turns of users who have not opted out
+     */
+    private boolean isCacheable(PreparedChat prepared, String userMessage, float[] queryEmbedding) {
+        return prepared.responseCacheAllowed()
+                && responseCache.isCacheable(userMessage, queryEmbedding, prepared.movieIds());
+    }
+
     /**
      * Check if query is related to movies
+     * Keyword fast path, then the local embedding classifier (no LLM round trip)
      */
-    private boolean isMovieRelatedQuery(String query) {
-        String lowerQuery = query.toLowerCase();
-
-        // Movie-related keywords
-        String[] movieKeywords = {
-                "movie", "film", "watch", "recommend", "show me", "suggest",
-                "actor", "actress", "director", "genre", "drama", "action",
-                "comedy", "thriller", "horror", "romance", "sci-fi", "animation",
-                "plot", "story", "character", "scene", "ending", "rated"
-        };
-
-        // Check if query contains movie keywords
-        for (String keyword : movieKeywords) {
-            if (lowerQuery.contains(keyword)) {
-                return true;
-            }
+    private boolean isMovieRelatedQuery(String query, float[] queryEmbedding) {
+        // Whole-word movie keywords, one pass over the query
+        if (catalogueMatcher.mentionsMovieTopic(query)) {
+            return true;
         }
 
-        // Use LLM to determine if it's movie-related (fallback)
-        String prompt = "Is the following question related to movies, films, or cinema? " +
-                "Answer with only 'yes' or 'no'.\n\nQuestion: " + query;
-
-        String response = llmService.chat(prompt, null);
-        return response.toLowerCase().trim().startsWith("yes");
+        // Compare the query embedding with movie / off-topic centroids (fallback)
+        return topicClassifier.isMovieRelated(queryEmbedding);
     }
 
     /**
-     * Retrieve relevant movies using RAG
+     * Semantic retrieval step of RAG: movie ids ranked by similarity to the query embedding
+     * Returns null when vector search is unavailable so the caller can fall back to title search
      */
-    private List<Movie> retrieveRelevantMovies(String query) {
-        log.debug("Retrieving relevant movies for query: {}", query);
-
-        // Extract filters from query
-        MovieQueryFilters filters = extractFilters(query);
-
-        // Use vector search for semantic similarity
-        List<Movie> movies = new ArrayList<>();
+    private List<Long> searchRelevantMovieIds(float[] queryEmbedding) {
+        if (!embeddingService.isValidEmbedding(queryEmbedding)) {
+            log.warn("No query embedding available, falling back to keyword search");
+            return null;
+        }
 
         try {
-            var vectorResults = vectorSearchService.searchMoviesBySemanticMeaning(
-                    query,
-                    MAX_RETRIEVED_MOVIES
-            );
-
-            // Convert to Movie entities
-            List<Long> movieIds = vectorResults.stream()
+            return vectorSearchService.searchMoviesByEmbedding(queryEmbedding, MAX_RETRIEVED_MOVIES).stream()
                     .map(VectorSimilarityResult::getId)
                     .collect(Collectors.toList());
-
-            movies = movieRepository.findAllById(movieIds);
-
-            // Apply filters
-            movies = applyFilters(movies, filters);
-
         } catch (Exception e) {
             log.error("Error in vector search, falling back to keyword search", e);
+            return null;
+        }
+    }
+
+    /**
+     * Load context cards for the retrieved movies (one batched query) and apply filters extracted from the query
+     */
+    private List<ContextCard> loadRelevantMovies(String query, List<Long> candidateMovieIds) {
+        List<ContextCard> movies;
+
+        if (candidateMovieIds != null) {
+            movies = applyFilters(contextCardService.getCards(candidateMovieIds), extractFilters(query));
+        } else {
             // Fallback: Use title search
-            movies = movieRepository.searchByTitle(query, PageRequest.of(0, MAX_RETRIEVED_MOVIES))
+            List<Long> titleMatches = movieRepository.searchByTitle(query, PageRequest.of(0, MAX_RETRIEVED_MOVIES))
+                    .map(Movie::getId)
                     .getContent();
+            movies = contextCardService.getCards(titleMatches);
         }
 
         log.info("Retrieved {} relevant movies", movies.size());
@@ -177,14 +483,8 @@ public class MovieChatService {
             }
         }
 
-        // Extract genre (simple keyword matching)
-        String[] genres = {"war", "drama", "action", "comedy", "thriller", "horror",
-                "romance", "sci-fi", "science fiction", "animation"};
-        for (String genre : genres) {
-            if (query.toLowerCase().contains(genre)) {
-                filters.genres.add(genre);
-            }
-        }
+        // Extract genres (catalogue genre names and common aliases, whole words)
+        filters.genres.addAll(catalogueMatcher.findGenres(query));
 
         return filters;
     }
@@ -192,26 +492,21 @@ public class MovieChatService {
     /**
      * Apply extracted filters to movie list
      */
-    private List<Movie> applyFilters(List<Movie> movies, MovieQueryFilters filters) {
+    private List<ContextCard> applyFilters(List<ContextCard> movies, MovieQueryFilters filters) {
         return movies.stream()
                 .filter(movie -> {
                     // Filter by rating
                     if (filters.minRating != null) {
-                        if (movie.getAvgRating() == null ||
-                                movie.getAvgRating() < filters.minRating) {
+                        if (movie.avgRating() == null ||
+                                movie.avgRating() < filters.minRating) {
                             return false;
                         }
                     }
 
-                    // Filter by genre
+                    // Filter by genre (both sides are lower-cased genre names)
                     if (!filters.genres.isEmpty()) {
-                        Set<String> movieGenres = movie.getGenres().stream()
-                                .map(g -> g.getName().toLowerCase())
-                                .collect(Collectors.toSet());
-
                         boolean hasGenre = filters.genres.stream()
-                                .anyMatch(filterGenre -> movieGenres.stream()
-                                        .anyMatch(mg -> mg.contains(filterGenre)));
+                                .anyMatch(movie.genres()::contains);
 
                         if (!hasGenre) return false;
                     }
@@ -222,169 +517,48 @@ public class MovieChatService {
     }
 
     /**
-     * Build context for LLM with conversation history and retrieved movies
+     * Prompt entry for one movie: the precomputed context card plus live rating stats
      */
-    private String buildContext(ChatConversation conversation, List<Movie> movies) {
-        StringBuilder context = new StringBuilder();
-
-        context.append("=== AVAILABLE MOVIES IN DATABASE ===\n\n");
-
-        for (int i = 0; i < Math.min(movies.size(), 15); i++) {
-            Movie movie = movies.get(i);
-            context.append(String.format("Movie %d:\n", i + 1));
-            context.append(String.format("Title: %s (%d)\n",
-                    movie.getTitle(),
-                    movie.getReleaseDate() != null ? movie.getReleaseDate().getYear() : 0));
-
-            // Overview with rich detail
-            if (movie.getOverview() != null && !movie.getOverview().isEmpty()) {
-                context.append(String.format("Plot: %s\n", movie.getOverview()));
-            }
-
-            // Genres
-            if (!movie.getGenres().isEmpty()) {
-                String genres = movie.getGenres().stream()
-                        .map(g -> g.getName())
-                        .collect(Collectors.joining(", "));
-                context.append(String.format("Genres: %s\n", genres));
-            }
-
-            // Directors
-            if (!movie.getDirectors().isEmpty()) {
-                String directors = String.join(", ", movie.getDirectors());
-                context.append(String.format("Director(s): %s\n", directors));
-            }
-
-            // Cast
-            if (!movie.getCast().isEmpty()) {
-                String cast = movie.getCast().stream()
-                        .limit(5)
-                        .collect(Collectors.joining(", "));
-                context.append(String.format("Cast: %s\n", cast));
-            }
-
-            // Keywords for thematic understanding
-            if (!movie.getKeywords().isEmpty()) {
-                String keywords = movie.getKeywords().stream()
-                        .limit(8)
-                        .map(k -> k.getName())
-                        .collect(Collectors.joining(", "));
-                context.append(String.format("Themes/Keywords: %s\n", keywords));
-            }
-
-            // Ratings
-            if (movie.getAvgRating() != null) {
-                context.append(String.format("User Rating: %.1f/5 (%d ratings)\n",
-                        movie.getAvgRating(),
-                        movie.getRatingCount() != null ? movie.getRatingCount() : 0));
-            }
-
-            if (movie.getVoteAverage() != null) {
-                context.append(String.format("TMDb Rating: %.1f/10\n", movie.getVoteAverage()));
-            }
-
-            context.append("\n");
+    private String renderMovieEntry(ContextCard movie) {
+        StringBuilder entry = new StringBuilder(movie.card());
+
+        // Ratings (live, not part of the stored card)
+        if (movie.avgRating() != null) {
+            entry.append(String.format("User Rating: %.1f/5 (%d ratings)\n",
+                    movie.avgRating(),
+                    movie.ratingCount()));
         }
 
-        return context.toString();
+        return entry.toString();
     }
 
     /**
-     * Generate response using LLM with RAG context
+     * Conversation history not yet covered by the rolling summary, in chronological order
      */
-    private String generateResponse(ChatConversation conversation,
-                                    String userMessage,
-                                    String context) {
+    private List<OllamaLLMService.ChatMessageContext> loadRecentHistory(ChatConversation conversation) {
+        List<ChatMessage> history = summaryService.loadUnsummarizedHistory(conversation);
 
-        // Build conversation history
         List<OllamaLLMService.ChatMessageContext> messages = new ArrayList<>();
-
-        // Get recent messages
-        List<ChatMessage> history = messageRepository.findByConversationIdOrderByCreatedAtAsc(
-                conversation.getId()
-        );
-
-        // Take last N messages for context
-        int start = Math.max(0, history.size() - MAX_CONTEXT_MESSAGES);
-        for (int i = start; i < history.size(); i++) {
-            ChatMessage msg = history.get(i);
+        for (ChatMessage msg : history) {
             messages.add(new OllamaLLMService.ChatMessageContext(
                     msg.getRole().name().toLowerCase(),
                     msg.getContent()
             ));
         }
 
-        // Add current user message
-        messages.add(new OllamaLLMService.ChatMessageContext("user", userMessage));
-
-        // System prompt with RAG context
-        String systemPrompt = buildSystemPrompt(context);
-
-        return llmService.chat(messages, systemPrompt);
-    }
-
-    /**
-     * Build system prompt with RAG context
-     */
-    private String buildSystemPrompt(String context) {
-        return """
-                You are a knowledgeable and passionate movie recommendation assistant with deep understanding of cinema. Your goal is to help users discover movies they'll love by providing thoughtful, detailed recommendations.
-                
-                CORE RULES:
-                1. ONLY discuss movies, films, and cinema-related topics
-                2. Use ONLY the movies from the provided database below
-                3. Never recommend movies that aren't in the database
-                
-                RECOMMENDATION STYLE:
-                1. **Explain WHY** - Always explain why you're recommending a movie
-                   - What themes, tone, or style similarities exist?
-                   - What specific elements connect it to the user's request?
-                   - What makes it special or worth watching?
-                
-                2. **Be Conversational** - Write like a knowledgeable friend, not a robot
-                   - Use natural language: "I think you'll love...", "If you enjoyed X, then..."
-                   - Show enthusiasm when appropriate
-                   - Use comparisons to help explain similarities
-                
-                3. **Provide Context** - Give relevant details:
-                   - Mention director if notable
-                   - Reference key themes or plot elements (without major spoilers)
-                   - Include the rating if it's high (4+ stars)
-                   - Mention genre when relevant
-                
-                4. **Format Naturally**:
-                   - Start with a brief introduction addressing their request
-                   - Present 3-5 movies with explanations
-                   - Use conversational transitions between recommendations
-                   - End with an open invitation for follow-up questions
-                
-                EXAMPLE FORMAT:
-                "Since you loved Interstellar's exploration of time and space, I have some great recommendations:
-                
-                **Arrival** is a perfect match - it shares Interstellar's intellectual approach to sci-fi, dealing with time perception and communication in deeply emotional ways. Like Interstellar, it's more about ideas and human connection than action. Rating: 4.2/5
-                
-                **The Martian** captures that same sense of wonder about space and human resilience. While it's lighter in tone than Interstellar, it shares the scientific accuracy and the theme of survival against impossible odds. Rating: 4.5/5"
-                
-                """ + context + """
-                
-                Now, based on the movies available above, provide thoughtful recommendations that explain WHY each movie matches what the user is looking for. Remember to be specific, insightful, and conversational.
-                """;
+        return messages;
     }
 
     /**
      * Extract movie IDs mentioned in assistant response
+     * Matches the whole catalogue in one pass; movies retrieved for this turn win ties between equal titles
      */
-    private List<Long> extractMovieIds(String response, List<Movie> availableMovies) {
-        List<Long> movieIds = new ArrayList<>();
-
-        // Try to match movie titles in the response
-        for (Movie movie : availableMovies) {
-            if (response.contains(movie.getTitle())) {
-                movieIds.add(movie.getId());
-            }
-        }
+    private List<Long> extractMovieIds(String response, List<MovieRef> availableMovies) {
+        Set<Long> retrievedIds = availableMovies.stream()
+                .map(MovieRef::id)
+                .collect(Collectors.toSet());
 
-        return movieIds;
+        return catalogueMatcher.findMovieIds(response, retrievedIds);
     }
 
     /**
@@ -422,7 +596,9 @@ public class MovieChatService {
                 .isOffTopic(isOffTopic)
                 .build();
 
-        return messageRepository.save(message);
+        message = messageRepository.save(message);
+        conversationRepository.incrementMessageCount(conversation.getId(), 1);
+        return message;
     }
 
     /**
@@ -441,21 +617,30 @@ public class MovieChatService {
                 .build();
     }
 
-    /**
-     * Map Movie entity to DTO
-     */
-    private MovieDTO mapToMovieDTO(Movie movie) {
-        return MovieDTO.builder()
-                .id(movie.getId())
-                .tmdbId(movie.getTmdbId())
-                .title(movie.getTitle())
-                .overview(movie.getOverview())
-                .posterPath(movie.getPosterPath())
-                .avgRating(movie.getAvgRating())
-                .ratingCount(movie.getRatingCount())
-                .build();
+    // Prompt and retrieval state carried between the transactional stages of a chat
+    private record PreparedChat(Long conversationId,
+                                List<OllamaLLMService.ChatMessageContext> messages,
+                                String systemPrompt,
+                                List<MovieRef> movies,
+                                int promptTokens,
+                                boolean responseCacheAllowed) {
+
+        List<Long> movieIds() {
+            return movies.stream().map(MovieRef::id).toList();
+        }
     }
 
+    private record MovieRef(Long id, String title) {}
+
+    // Conversation state loaded in parallel with the query embedding
+    private record ConversationContext(Long conversationId,
+                                       String summary,
+                                       List<OllamaLLMService.ChatMessageContext> history,
+                                       boolean responseCacheAllowed) {}
+
+    // Query embedding plus the prepared prompt; prepared is null for off-topic queries
+    private record Retrieval(float[] queryEmbedding, PreparedChat prepared) {}
+
     // Helper class for query filters
     private static class MovieQueryFilters {
         Double minRating;
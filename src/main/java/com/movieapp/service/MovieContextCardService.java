@@ -0,0 +1,206 @@
+package com.movieapp.service;
+
+import com.movieapp.entity.Genre;
+import com.movieapp.entity.Keyword;
+import com.movieapp.entity.Movie;
+import com.movieapp.repository.MovieRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Per-movie RAG context cards: the static part of a movie's chat context rendered once
+ * (on save/sync or by the backfill job) and stored in movies.context_card.
+ * Prompt assembly then needs a single batched query instead of four lazy loads per movie.
+ */
+@Service
+@Slf4j
+public class MovieContextCardService {
+
+    // Bump when the card layout changes; stale cards are re-rendered by the backfill job or on read
+    public static final int CARD_VERSION = 1;
+
+    private static final int MAX_CAST = 5;
+    private static final int MAX_KEYWORDS = 8;
+    private static final int MAX_BATCHES_PER_RUN = 50;
+
+    private final MovieRepository movieRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public MovieContextCardService(
+            MovieRepository movieRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${chat.context-cards.batch-size:200}") int batchSize) {
+
+        this.movieRepository = movieRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Render and set the card on a managed movie; the caller's save/flush persists it
+     */
+    public void refreshCard(Movie movie) {
+        movie.setContextCard(render(movie));
+        movie.setContextCardVersion(CARD_VERSION);
+        movie.setContextCardUpdatedAt(LocalDateTime.now());
+    }
+
+    /**
+     * Static movie facts for the chat prompt. User rating stats change with every rating,
+     * so they are appended at prompt time from the same batched query instead.
+     */
+    public String render(Movie movie) {
+        StringBuilder card = new StringBuilder();
+
+        card.append("Title: ").append(movie.getTitle())
+                .append(" (").append(movie.getReleaseDate() != null ? movie.getReleaseDate().getYear() : 0).append(")\n");
+
+        // Overview with rich detail
+        if (movie.getOverview() != null && !movie.getOverview().isEmpty()) {
+            card.append("Plot: ").append(movie.getOverview()).append("\n");
+        }
+
+        // Genres
+        if (!movie.getGenres().isEmpty()) {
+            card.append("Genres: ").append(movie.getGenres().stream()
+                    .map(Genre::getName)
+                    .sorted()
+                    .collect(Collectors.joining(", "))).append("\n");
+        }
+
+        // Directors
+        if (!movie.getDirectors().isEmpty()) {
+            card.append("Director(s): ").append(movie.getDirectors().stream()
+                    .sorted()
+                    .collect(Collectors.joining(", "))).append("\n");
+        }
+
+        // Cast
+        if (!movie.getCast().isEmpty()) {
+            card.append("Cast: ").append(movie.getCast().stream()
+                    .sorted()
+                    .limit(MAX_CAST)
+                    .collect(Collectors.joining(", "))).append("\n");
+        }
+
+        // Keywords for thematic understanding
+        if (!movie.getKeywords().isEmpty()) {
+            card.append("Themes/Keywords: ").append(movie.getKeywords().stream()
+                    .map(Keyword::getName)
+                    .sorted()
+                    .limit(MAX_KEYWORDS)
+                    .collect(Collectors.joining(", "))).append("\n");
+        }
+
+        if (movie.getVoteAverage() != null) {
+            card.append(String.format("TMDb Rating: %.1f/10\n", movie.getVoteAverage()));
+        }
+
+        return card.toString();
+    }
+
+    /**
+     * Load cards for the given movies in one query, preserving the input order
+     * Missing or outdated cards are rendered and stored on the spot (must run inside a transaction)
+     */
+    public List<ContextCard> getCards(List<Long> movieIds) {
+        if (movieIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, ContextCard> cards = new HashMap<>();
+        List<Long> stale = new ArrayList<>();
+
+        for (Object[] row : movieRepository.findContextCardsByIds(movieIds)) {
+            Long id = ((Number) row[0]).longValue();
+            Integer version = row[3] != null ? ((Number) row[3]).intValue() : null;
+
+            if (row[2] == null || version == null || version < CARD_VERSION) {
+                stale.add(id);
+                continue;
+            }
+
+            cards.put(id, new ContextCard(
+                    id,
+                    (String) row[1],
+                    (String) row[2],
+                    row[4] != null ? ((Number) row[4]).doubleValue() : null,
+                    row[5] != null ? ((Number) row[5]).intValue() : 0,
+                    parseGenres((String) row[6])
+            ));
+        }
+
+        if (!stale.isEmpty()) {
+            log.debug("Rendering {} missing context cards", stale.size());
+            for (Movie movie : movieRepository.findAllWithCardDetailsByIdIn(stale)) {
+                refreshCard(movie);
+                cards.put(movie.getId(), new ContextCard(
+                        movie.getId(),
+                        movie.getTitle(),
+                        movie.getContextCard(),
+                        movie.getAvgRating(),
+                        movie.getRatingCount() != null ? movie.getRatingCount() : 0,
+                        movie.getGenres().stream()
+                                .map(g -> g.getName().toLowerCase())
+                                .collect(Collectors.toSet())
+                ));
+            }
+        }
+
+        return movieIds.stream()
+                .map(cards::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Background job: render cards for movies imported before cards existed or after a format change
+     */
+    @Scheduled(
+            initialDelayString = "${chat.context-cards.initial-delay-ms:90000}",
+            fixedDelayString = "${chat.context-cards.backfill-interval-ms:600000}")
+    public void backfillContextCards() {
+        int updated = 0;
+
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+            Integer count = transactionTemplate.execute(status -> {
+                List<Long> ids = movieRepository.findMovieIdsNeedingContextCard(CARD_VERSION, batchSize);
+                movieRepository.findAllWithCardDetailsByIdIn(ids).forEach(this::refreshCard);
+                return ids.size();
+            });
+            if (count == null || count == 0) {
+                break;
+            }
+            updated += count;
+            if (count < batchSize) {
+                break;
+            }
+        }
+
+        if (updated > 0) {
+            log.info("Rendered {} movie context cards", updated);
+        }
+    }
+
+    private Set<String> parseGenres(String genreNames) {
+        if (genreNames == null || genreNames.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(Arrays.asList(genreNames.split(",")));
+    }
+
+    /**
+     * Chat context for one movie: stored card plus the live fields needed for filtering and rating
+     */
+    public record ContextCard(Long movieId, String title, String card,
+                              Double avgRating, int ratingCount, Set<String> genres) {}
+}
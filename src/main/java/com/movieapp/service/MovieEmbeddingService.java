@@ -4,6 +4,8 @@ import com.movieapp.entity.Movie;
 import com.movieapp.entity.Genre;
 import com.movieapp.entity.Keyword;
 import com.movieapp.repository.MovieRepository;
+import com.movieapp.util.AdaptiveConcurrencyLimiter.Priority;
+import com.movieapp.util.EmbeddingProjection;
 import com.pgvector.PGvector;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +21,7 @@ public class MovieEmbeddingService {
 
     private final OllamaEmbeddingService ollamaService;
     private final MovieRepository movieRepository;
+    private final EmbeddingProjection embeddingProjection;
 
     /**
      * Generate embedding for a movie based on overview, genres, and keywords
@@ -41,12 +44,14 @@ public class MovieEmbeddingService {
         System.out.println("movieText: " + movieText);
 
         // Generate embedding using Ollama
-        float[] embedding = ollamaService.generateEmbedding(movieText);
+        float[] embedding = ollamaService.generateEmbedding(movieText, Priority.BACKGROUND);
         PGvector pgVector = ollamaService.toPGVector(embedding);
 
         // Save to database
         movie.setEmbedding(pgVector);
         movie.setEmbeddingGeneratedAt(LocalDateTime.now());
+        movie.setEmbeddingReduced(ollamaService.toPGVector(embeddingProjection.project(embedding)));
+        movie.setEmbeddingReducedAt(LocalDateTime.now());
         movieRepository.save(movie);
 
         log.info("Successfully generated and saved embedding for movie: {}", movie.getTitle());
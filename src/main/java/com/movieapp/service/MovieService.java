@@ -29,10 +29,12 @@ public class MovieService {
     private final KeywordService keywordService;
     private final GenreService genreService;
     private final MovieEmbeddingService embeddingService;
+    private final MovieContextCardService contextCardService;
     private final MovieMapper movieMapper;
 
 
     @Cacheable(value = "movie-details", key = "#movieId")
+    @Transactional(readOnly = true)
     public MovieDTO getMovie(Long movieId) {
         Movie movie = movieRepository.findById(movieId)
                 .orElseThrow(() -> new RuntimeException("Movie not found"));
@@ -102,6 +104,7 @@ public class MovieService {
         return localResults.stream().map(movieMapper::mapToDTO).toList();
     }
 
+    @Transactional(readOnly = true)
     public List<MovieDTO> getMoviesByGenres(List<String> genreNames, int limit) {
         List<Movie> movies = movieRepository.findByGenreNames(genreNames,
                 Pageable.ofSize(limit));
@@ -158,6 +161,7 @@ public class MovieService {
                 .lastSyncedAt(LocalDateTime.now())
                 .build();
 
+        contextCardService.refreshCard(movie);
 
         movie = movieRepository.save(movie);
 
@@ -231,6 +235,8 @@ public class MovieService {
         oldKeywords.forEach(keyword -> keywordService.decrementMovieCount(keyword.getId()));
         movie.getKeywords().forEach(keyword -> keywordService.incrementMovieCount(keyword.getId()));
 
+        contextCardService.refreshCard(movie);
+
         movie = movieRepository.save(movie);
         return movieMapper.mapToDTO(movie);
     }
@@ -305,6 +311,7 @@ public class MovieService {
                 .collect(Collectors.toSet());
 
         movie.setKeywords(newKeywords);
+        contextCardService.refreshCard(movie);
 
         movieRepository.save(movie);
 
@@ -0,0 +1,107 @@
+package com.movieapp.service;
+
+import com.movieapp.dto.MovieSuggestionDTO;
+import com.movieapp.repository.MovieRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.*;
+
+@Service
+@Slf4j
+@Transactional(readOnly = true)
+public class MovieSuggestionService {
+
+    private final MovieRepository movieRepository;
+    private final double similarityThreshold;
+    private final int minFuzzyLength;
+    private final int maxLimit;
+
+    public MovieSuggestionService(
+            MovieRepository movieRepository,
+            @Value("${search.suggest.similarity-threshold:0.3}") double similarityThreshold,
+            @Value("${search.suggest.min-fuzzy-length:3}") int minFuzzyLength,
+            @Value("${search.suggest.max-limit:20}") int maxLimit) {
+
+        this.movieRepository = movieRepository;
+        this.similarityThreshold = similarityThreshold;
+        this.minFuzzyLength = minFuzzyLength;
+        this.maxLimit = maxLimit;
+
+        log.info("Movie suggestion service initialized: threshold={}, minFuzzyLength={}",
+                similarityThreshold, minFuzzyLength);
+    }
+
+    /**
+     * Typeahead suggestions for a title prefix
+     * Prefix matches come first (btree fast path), trigram matches fill the rest
+     */
+    @Cacheable(value = "movie-suggestions", key = "#query.trim().toLowerCase() + '-' + #root.target.clampLimit(#limit)")
+    public List<MovieSuggestionDTO> suggest(String query, int limit) {
+        String normalized = query.trim().toLowerCase();
+        int effectiveLimit = clampLimit(limit);
+
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+
+        // Fast path: index-backed prefix scan
+        Map<Long, MovieSuggestionDTO> suggestions = new LinkedHashMap<>();
+        mapToSuggestions(movieRepository.suggestByTitlePrefix(escapeLike(normalized), effectiveLimit))
+                .forEach(s -> suggestions.put(s.getId(), s));
+
+        // Trigrams are not selective below 3 characters, so only fall back for longer queries
+        if (suggestions.size() < effectiveLimit && normalized.length() >= minFuzzyLength) {
+            movieRepository.setTrigramSimilarityThreshold(String.valueOf(similarityThreshold));
+
+            mapToSuggestions(movieRepository.suggestByTitleSimilarity(normalized, effectiveLimit))
+                    .forEach(s -> suggestions.putIfAbsent(s.getId(), s));
+        }
+
+        log.debug("Suggestions for '{}': {}", normalized, suggestions.size());
+
+        return suggestions.values().stream()
+                .limit(effectiveLimit)
+                .toList();
+    }
+
+    /**
+     * Limit actually applied (1..max-limit); also the cache key, so out-of-range limits share one entry
+     */
+    public int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, maxLimit));
+    }
+
+    /**
+     * Escape LIKE wildcards so user input is matched literally
+     */
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    /**
+     * Map native query rows (id, title, release_date, poster_path) to suggestions
+     */
+    private List<MovieSuggestionDTO> mapToSuggestions(List<Object[]> rows) {
+        List<MovieSuggestionDTO> suggestions = new ArrayList<>(rows.size());
+
+        for (Object[] row : rows) {
+            Date releaseDate = (Date) row[2];
+
+            suggestions.add(MovieSuggestionDTO.builder()
+                    .id(((Number) row[0]).longValue())
+                    .title((String) row[1])
+                    .year(releaseDate != null ? releaseDate.toLocalDate().getYear() : null)
+                    .posterPath((String) row[3])
+                    .build());
+        }
+
+        return suggestions;
+    }
+}
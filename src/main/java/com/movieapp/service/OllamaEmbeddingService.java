@@ -1,105 +1,105 @@
 package com.movieapp.service;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.movieapp.util.AdaptiveConcurrencyLimiter;
+import com.movieapp.util.AdaptiveConcurrencyLimiter.Priority;
+import com.movieapp.util.EmbeddingJsonParser;
+import com.movieapp.util.OllamaTransport;
 import com.pgvector.PGvector;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.*;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
 public class OllamaEmbeddingService {
 
-    private final OkHttpClient client;
-    private final String baseUrl;
+    private final OllamaTransport transport;
     private final String model;
     private final int embeddingDimension;
-    private final Gson gson;
+    private final Duration readTimeout;
+    private final AdaptiveConcurrencyLimiter limiter;
 
     public OllamaEmbeddingService(
-            @Value("${ollama.base-url:http://localhost:11434}") String baseUrl,
+            OllamaTransport transport,
             @Value("${ollama.model:nomic-embed-text}") String model,
-            @Value("${ollama.embedding-dimension:768}") int embeddingDimension) {
+            @Value("${ollama.embedding-dimension:768}") int embeddingDimension,
+            @Value("${ollama.http.embedding-read-timeout-seconds:60}") long readTimeoutSeconds,
+            @Qualifier("ollamaLimiter") AdaptiveConcurrencyLimiter limiter) {
 
-        this.baseUrl = baseUrl;
+        this.transport = transport;
         this.model = model;
         this.embeddingDimension = embeddingDimension;
-        this.gson = new Gson();
+        this.readTimeout = Duration.ofSeconds(readTimeoutSeconds);
+        this.limiter = limiter;
 
-        this.client = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(60, TimeUnit.SECONDS)
-                .writeTimeout(60, TimeUnit.SECONDS)
-                .build();
+        log.info("Ollama Embedding Service initialized: model={}, dimension={}", model, embeddingDimension);
+    }
 
-        log.info("Ollama Embedding Service initialized: url={}, model={}, dimension={}",
-                baseUrl, model, embeddingDimension);
+    /**
+     * Generate embedding for a text using Ollama (interactive priority)
+     */
+    public float[] generateEmbedding(String text) {
+        return generateEmbedding(text, Priority.INTERACTIVE);
     }
 
     /**
      * Generate embedding for a text using Ollama
+     * Background callers (catalogue embedding) queue behind interactive chat traffic
      */
-    public float[] generateEmbedding(String text) {
+    public float[] generateEmbedding(String text, Priority priority) {
         if (text == null || text.trim().isEmpty()) {
             log.warn("Empty text provided for embedding generation");
             return new float[embeddingDimension];
         }
 
         try {
-            JsonObject requestBody = new JsonObject();
-            requestBody.addProperty("model", model);
-            requestBody.addProperty("prompt", text);
-
-            RequestBody body = RequestBody.create(
-                    gson.toJson(requestBody),
-                    MediaType.parse("application/json")
-            );
-
-            Request request = new Request.Builder()
-                    .url(baseUrl + "/api/embeddings")
-                    .post(body)
-                    .build();
-
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    log.error("Ollama API error: {}", response.code());
-                    return new float[embeddingDimension];
-                }
-
-                String responseBody = response.body().string();
-                JsonObject jsonResponse = gson.fromJson(responseBody, JsonObject.class);
-
-                // Extract embedding array
-                if (jsonResponse.has("embedding")) {
-                    List<Double> embeddingList = gson.fromJson(
-                            jsonResponse.get("embedding"),
-                            List.class
-                    );
-
-                    float[] embedding = new float[embeddingList.size()];
-                    for (int i = 0; i < embeddingList.size(); i++) {
-                        embedding[i] = embeddingList.get(i).floatValue();
-                    }
-
-                    log.debug("Generated embedding of size: {}", embedding.length);
-                    return embedding;
-                }
-
+            float[] embedding = limiter.execute(priority, "embedding", () -> transport.post(
+                    "/api/embeddings",
+                    writer -> writer.beginObject()
+                            .name("model").value(model)
+                            .name("prompt").value(text)
+                            .endObject(),
+                    readTimeout,
+                    null,
+                    source -> firstEmbedding(EmbeddingJsonParser.parse(source, embeddingDimension))));
+
+            if (embedding == null) {
                 log.error("No embedding in response");
                 return new float[embeddingDimension];
             }
 
+            log.debug("Generated embedding of size: {}", embedding.length);
+            return embedding;
+
         } catch (IOException e) {
             log.error("Error generating embedding: {}", e.getMessage(), e);
             return new float[embeddingDimension];
         }
     }
 
+    private float[] firstEmbedding(List<float[]> embeddings) {
+        return embeddings.isEmpty() ? null : embeddings.get(0);
+    }
+
+    /**
+     * generateEmbedding returns an all-zero vector on failure; such a vector carries no meaning
+     */
+    public boolean isValidEmbedding(float[] embedding) {
+        if (embedding == null || embedding.length == 0) {
+            return false;
+        }
+        for (float v : embedding) {
+            if (v != 0f) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Convert float array to PGvector
      */
@@ -151,19 +151,12 @@ public class OllamaEmbeddingService {
      */
     public boolean testConnection() {
         try {
-            Request request = new Request.Builder()
-                    .url(baseUrl + "/api/tags")
-                    .get()
-                    .build();
-
-            try (Response response = client.newCall(request).execute()) {
-                boolean isSuccess = response.isSuccessful();
-                log.info("Ollama connection test: {}", isSuccess ? "SUCCESS" : "FAILED");
-                return isSuccess;
-            }
+            transport.get("/api/tags", source -> null);
+            log.info("Ollama connection test: SUCCESS");
+            return true;
         } catch (Exception e) {
             log.error("Failed to connect to Ollama: {}", e.getMessage());
             return false;
         }
     }
-}
\ No newline at end of file
+}
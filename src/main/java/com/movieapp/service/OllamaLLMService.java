@@ -1,41 +1,77 @@
 package com.movieapp.service;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.movieapp.util.AdaptiveConcurrencyLimiter;
+import com.movieapp.util.AdaptiveConcurrencyLimiter.Priority;
+import com.movieapp.util.CancellationSignal;
+import com.movieapp.util.OllamaTransport;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.*;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 public class OllamaLLMService {
 
-    private final OkHttpClient client;
-    private final String baseUrl;
+    private final OllamaTransport transport;
     private final String chatModel;
-    private final Gson gson;
+    private final String keepAlive;
+    private final int contextLength;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final Timer prefillTime;
+    private final Timer generationTime;
+    private final Timer loadTime;
+    private final Timer timeToFirstToken;
+    private final DistributionSummary promptTokensEvaluated;
+    private final DistributionSummary completionTokens;
 
     public OllamaLLMService(
-            @Value("${ollama.base-url:http://localhost:11434}") String baseUrl,
-            @Value("${ollama.chat-model:llama3.2}") String chatModel) {
+            OllamaTransport transport,
+            MeterRegistry meterRegistry,
+            @Value("${ollama.chat-model:llama3.2}") String chatModel,
+            @Value("${ollama.keep-alive:30m}") String keepAlive,
+            @Value("${ollama.options.num-ctx:4096}") int contextLength,
+            @Qualifier("ollamaLimiter") AdaptiveConcurrencyLimiter limiter) {
 
-        this.baseUrl = baseUrl;
+        this.transport = transport;
         this.chatModel = chatModel;
-        this.gson = new Gson();
+        this.keepAlive = keepAlive;
+        this.contextLength = contextLength;
+        this.limiter = limiter;
 
-        this.client = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(120, TimeUnit.SECONDS)
-                .writeTimeout(60, TimeUnit.SECONDS)
-                .build();
+        this.prefillTime = Timer.builder("ollama.chat.prefill")
+                .description("Prompt evaluation time reported by Ollama (drops when the KV cache prefix is reused)")
+                .register(meterRegistry);
+        this.generationTime = Timer.builder("ollama.chat.generation")
+                .description("Token generation time reported by Ollama")
+                .register(meterRegistry);
+        this.loadTime = Timer.builder("ollama.chat.load")
+                .description("Model load time reported by Ollama (non-zero after keep-alive expiry)")
+                .register(meterRegistry);
+        this.timeToFirstToken = Timer.builder("ollama.chat.time-to-first-token")
+                .description("Time until the first streamed token arrives")
+                .register(meterRegistry);
+        this.promptTokensEvaluated = DistributionSummary.builder("ollama.chat.prompt.evaluated")
+                .description("Prompt tokens Ollama had to evaluate (not served from its cache)")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.completionTokens = DistributionSummary.builder("ollama.chat.completion.tokens")
+                .baseUnit("tokens")
+                .register(meterRegistry);
 
-        log.info("Ollama LLM Service initialized: url={}, model={}", baseUrl, chatModel);
+        log.info("Ollama LLM Service initialized: model={}, keepAlive={}, numCtx={}", chatModel, keepAlive, contextLength);
     }
 
     /**
@@ -43,67 +79,217 @@ public class OllamaLLMService {
      */
     public String chat(List<ChatMessageContext> messages, String systemPrompt) {
         try {
-            JsonObject requestBody = new JsonObject();
-            requestBody.addProperty("model", chatModel);
-            requestBody.addProperty("stream", false);
-
-            // Build messages array
-            JsonArray messagesArray = new JsonArray();
-
-            // Add system prompt
-            if (systemPrompt != null && !systemPrompt.isEmpty()) {
-                JsonObject systemMsg = new JsonObject();
-                systemMsg.addProperty("role", "system");
-                systemMsg.addProperty("content", systemPrompt);
-                messagesArray.add(systemMsg);
+            return complete(messages, systemPrompt, Priority.INTERACTIVE, (CancellationSignal) null);
+        } catch (IOException e) {
+            log.error("Error chatting with Ollama: {}", e.getMessage(), e);
+            return "I apologize, but I encountered an error while processing your request.";
+        }
+    }
+
+    /**
+     * Non-streaming chat that reports failures instead of returning an apology text
+     * For internal generations (e.g. conversation summaries) whose output is stored, not shown;
+     * operation keeps their latency baseline apart from user chats in the limiter
+     */
+    public String complete(List<ChatMessageContext> messages, String systemPrompt,
+                           Priority priority, String operation) throws IOException {
+        return complete(messages, systemPrompt, priority, operation, null);
+    }
+
+    /**
+     * Non-streaming chat that can be aborted: cancelling the signal cancels the in-flight HTTP call
+     * (the caller then sees an IOException)
+     */
+    public String complete(List<ChatMessageContext> messages, String systemPrompt,
+                           Priority priority, CancellationSignal cancellation) throws IOException {
+        return complete(messages, systemPrompt, priority, "chat", cancellation);
+    }
+
+    private String complete(List<ChatMessageContext> messages, String systemPrompt,
+                            Priority priority, String operation, CancellationSignal cancellation) throws IOException {
+        log.debug("Sending chat request to Ollama with {} messages", messages.size());
+
+        return limiter.execute(priority, operation, () -> transport.post(
+                "/api/chat",
+                writer -> writeChatRequest(writer, messages, systemPrompt, false),
+                null,
+                cancellation,
+                source -> {
+                    ChatChunk chunk = readChunk(OllamaTransport.jsonReader(source));
+                    if (chunk.error() != null) {
+                        throw new IOException("Ollama chat error: " + chunk.error());
+                    }
+                    recordStats(chunk);
+                    if (chunk.content() == null) {
+                        throw new IOException("No message in Ollama response");
+                    }
+
+                    log.debug("Received response from Ollama ({} chars)", chunk.content().length());
+                    return new ChatReply(chunk.content(), nanosPerToken(chunk));
+                }), ChatReply::nanosPerToken).content();
+    }
+
+    /**
+     * Streaming chat: decodes Ollama's NDJSON stream object by object and hands each content chunk to onToken.
+     * Returns the full response once Ollama reports done. If onToken throws, the HTTP call is aborted.
+     */
+    public String chatStream(List<ChatMessageContext> messages, String systemPrompt,
+                             Consumer<String> onToken) throws IOException {
+        log.debug("Sending streaming chat request to Ollama with {} messages", messages.size());
+
+        return limiter.execute(Priority.INTERACTIVE, "chat", () -> transport.post(
+                "/api/chat",
+                writer -> writeChatRequest(writer, messages, systemPrompt, true),
+                null,
+                null,
+                source -> readStream(OllamaTransport.jsonReader(source), onToken)), ChatReply::nanosPerToken).content();
+    }
+
+    private ChatReply readStream(JsonReader reader, Consumer<String> onToken) throws IOException {
+        StringBuilder content = new StringBuilder();
+        long start = System.nanoTime();
+        boolean firstToken = true;
+        long nanosPerToken = -1;
+
+        // NDJSON is a sequence of top-level objects, which the reader accepts in lenient mode
+        reader.setLenient(true);
+        while (reader.peek() != JsonToken.END_DOCUMENT) {
+            ChatChunk chunk = readChunk(reader);
+
+            if (chunk.error() != null) {
+                throw new IOException("Ollama stream error: " + chunk.error());
             }
 
-            // Add conversation history
-            for (ChatMessageContext msg : messages) {
-                JsonObject msgObj = new JsonObject();
-                msgObj.addProperty("role", msg.getRole());
-                msgObj.addProperty("content", msg.getContent());
-                messagesArray.add(msgObj);
+            String token = chunk.content();
+            if (token != null && !token.isEmpty()) {
+                if (firstToken) {
+                    long elapsed = System.nanoTime() - start;
+                    timeToFirstToken.record(elapsed, TimeUnit.NANOSECONDS);
+                    log.debug("Time to first token: {} ms", elapsed / 1_000_000);
+                    firstToken = false;
+                }
+                content.append(token);
+                onToken.accept(token);
             }
 
-            requestBody.add("messages", messagesArray);
+            if (chunk.done()) {
+                recordStats(chunk);
+                nanosPerToken = nanosPerToken(chunk);
+                break;
+            }
+        }
 
-            RequestBody body = RequestBody.create(
-                    gson.toJson(requestBody),
-                    MediaType.parse("application/json")
-            );
+        log.debug("Streamed response from Ollama ({} chars) in {} ms",
+                content.length(), (System.nanoTime() - start) / 1_000_000);
+        return new ChatReply(content.toString(), nanosPerToken);
+    }
 
-            Request request = new Request.Builder()
-                    .url(baseUrl + "/api/chat")
-                    .post(body)
-                    .build();
+    /**
+     * Load signal for the limiter: generation time per token as measured by Ollama.
+     * Unlike the call duration it does not grow with answer length or with a slow SSE client,
+     * but it does grow when parallel requests share the model. -1 when Ollama reported no tokens.
+     */
+    private static long nanosPerToken(ChatChunk chunk) {
+        return chunk.done() && chunk.evalCount() > 0 ? chunk.evalDuration() / chunk.evalCount() : -1;
+    }
 
-            log.debug("Sending chat request to Ollama with {} messages", messages.size());
+    /**
+     * Timings Ollama reports on the final object of a response (durations in nanoseconds)
+     */
+    private void recordStats(ChatChunk chunk) {
+        if (!chunk.done()) {
+            return;
+        }
+        prefillTime.record(chunk.promptEvalDuration(), TimeUnit.NANOSECONDS);
+        generationTime.record(chunk.evalDuration(), TimeUnit.NANOSECONDS);
+        loadTime.record(chunk.loadDuration(), TimeUnit.NANOSECONDS);
+        promptTokensEvaluated.record(chunk.promptEvalCount());
+        completionTokens.record(chunk.evalCount());
 
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    log.error("Ollama chat error: {}", response.code());
-                    return "I apologize, but I'm having trouble processing your request right now.";
-                }
+        log.debug("Ollama turn: {} prompt tokens evaluated in {} ms, {} tokens generated in {} ms",
+                chunk.promptEvalCount(), chunk.promptEvalDuration() / 1_000_000,
+                chunk.evalCount(), chunk.evalDuration() / 1_000_000);
+    }
 
-                String responseBody = response.body().string();
-                JsonObject jsonResponse = gson.fromJson(responseBody, JsonObject.class);
+    /**
+     * Decode one /api/chat response object, skipping fields we do not use
+     */
+    private ChatChunk readChunk(JsonReader reader) throws IOException {
+        String content = null;
+        String error = null;
+        boolean done = false;
+        long promptEvalCount = 0;
+        long promptEvalDuration = 0;
+        long evalCount = 0;
+        long evalDuration = 0;
+        long loadDuration = 0;
 
-                if (jsonResponse.has("message")) {
-                    JsonObject messageObj = jsonResponse.getAsJsonObject("message");
-                    String content = messageObj.get("content").getAsString();
-                    log.debug("Received response from Ollama ({} chars)", content.length());
-                    return content;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "message" -> {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if ("content".equals(reader.nextName())) {
+                            content = reader.nextString();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
                 }
-
-                log.error("No message in Ollama response");
-                return "I apologize, but I couldn't generate a proper response.";
+                case "error" -> error = reader.nextString();
+                case "done" -> done = reader.nextBoolean();
+                case "prompt_eval_count" -> promptEvalCount = reader.nextLong();
+                case "prompt_eval_duration" -> promptEvalDuration = reader.nextLong();
+                case "eval_count" -> evalCount = reader.nextLong();
+                case "eval_duration" -> evalDuration = reader.nextLong();
+                case "load_duration" -> loadDuration = reader.nextLong();
+                default -> reader.skipValue();
             }
+        }
+        reader.endObject();
 
-        } catch (IOException e) {
-            log.error("Error chatting with Ollama: {}", e.getMessage(), e);
-            return "I apologize, but I encountered an error while processing your request.";
+        return new ChatChunk(content, error, done,
+                promptEvalCount, promptEvalDuration, evalCount, evalDuration, loadDuration);
+    }
+
+    /**
+     * Write the /api/chat request with optional system prompt.
+     * keep_alive keeps the model (and its prompt cache) loaded between turns; num_ctx must cover the
+     * prompt budget plus the reply, otherwise Ollama silently drops the start of the prompt.
+     */
+    private void writeChatRequest(JsonWriter writer, List<ChatMessageContext> messages,
+                                  String systemPrompt, boolean stream) throws IOException {
+        writer.beginObject();
+        writer.name("model").value(chatModel);
+        writer.name("stream").value(stream);
+        if (keepAlive != null && !keepAlive.isBlank()) {
+            writer.name("keep_alive").value(keepAlive);
+        }
+        if (contextLength > 0) {
+            writer.name("options").beginObject()
+                    .name("num_ctx").value(contextLength)
+                    .endObject();
+        }
+
+        writer.name("messages").beginArray();
+        if (systemPrompt != null && !systemPrompt.isEmpty()) {
+            writeMessage(writer, "system", systemPrompt);
         }
+        for (ChatMessageContext msg : messages) {
+            writeMessage(writer, msg.getRole(), msg.getContent());
+        }
+        writer.endArray();
+
+        writer.endObject();
+    }
+
+    private void writeMessage(JsonWriter writer, String role, String content) throws IOException {
+        writer.beginObject()
+                .name("role").value(role)
+                .name("content").value(content)
+                .endObject();
     }
 
     /**
@@ -120,17 +306,34 @@ public class OllamaLLMService {
      */
     public boolean isModelAvailable(String modelName) {
         try {
-            Request request = new Request.Builder()
-                    .url(baseUrl + "/api/tags")
-                    .get()
-                    .build();
-
-            try (Response response = client.newCall(request).execute()) {
-                if (response.isSuccessful()) {
-                    String responseBody = response.body().string();
-                    return responseBody.contains(modelName);
+            return transport.get("/api/tags", source -> {
+                JsonReader reader = OllamaTransport.jsonReader(source);
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (!"models".equals(reader.nextName())) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if ("name".equals(reader.nextName())) {
+                                String name = reader.nextString();
+                                // "llama3.2" is installed as "llama3.2:latest"
+                                if (name.equals(modelName) || name.startsWith(modelName + ":")) {
+                                    return true;
+                                }
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    }
+                    reader.endArray();
                 }
-            }
+                return false;
+            });
         } catch (Exception e) {
             log.error("Error checking model availability: {}", e.getMessage());
         }
@@ -162,4 +365,10 @@ public class OllamaLLMService {
             return content;
         }
     }
-}
\ No newline at end of file
+
+    private record ChatReply(String content, long nanosPerToken) {}
+
+    private record ChatChunk(String content, String error, boolean done,
+                             long promptEvalCount, long promptEvalDuration,
+                             long evalCount, long evalDuration, long loadDuration) {}
+}
@@ -117,16 +117,19 @@ public class RatingService {
                 movieId, avgRating, ratings.size());
     }
 
+    @Transactional(readOnly = true)
     public Optional<RatingDTO> getUserRatingForMovie(Long userId, Long movieId) {
         return ratingRepository.findByUserIdAndMovieId(userId, movieId)
                 .map(ratingMapper::toRatingDTO);
     }
 
+    @Transactional(readOnly = true)
     public Page<RatingDTO> getUserRatings(Long userId, Pageable pageable) {
         return ratingRepository.findByUserId(userId, pageable)
                 .map(ratingMapper::toRatingDTO);
     }
 
+    @Transactional(readOnly = true)
     public List<RatingDTO> getMovieRatings(Long movieId) {
         return ratingMapper.toRatingDTOList(ratingRepository.findByMovieId(movieId));
     }
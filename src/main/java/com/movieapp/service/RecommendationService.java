@@ -4,8 +4,10 @@ import com.movieapp.dto.MovieDTO;
 import com.movieapp.entity.*;
 import com.movieapp.mapper.MovieMapper;
 import com.movieapp.repository.*;
+import com.movieapp.util.MmrReranker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
@@ -24,6 +26,11 @@ public class RecommendationService {
     private final MovieRepository movieRepository;
     private final RatingRepository ratingRepository;
     private final BookmarkRepository bookmarkRepository;
+    private final VectorSearchService vectorSearchService;
+    private final MmrReranker mmrReranker;
+
+    @Value("${recommendation.collaborative-filtering.neighbor-count:10}")
+    private final int neighborCount;
 
     private static final int MIN_RATINGS_FOR_COLLABORATIVE = 10;
     private static final int MIN_COMMON_RATINGS = 5;
@@ -147,42 +154,33 @@ public class RecommendationService {
                 .map(r -> r.getMovie().getId())
                 .collect(Collectors.toSet());
 
-        // Find similar users based on common ratings
-        List<Long> movieIdsList = new ArrayList<>(ratedMovieIds);
-        List<Long> similarUserIds = ratingRepository.findSimilarUsers(
-                userId,
-                movieIdsList,
-                (long) MIN_COMMON_RATINGS
-        );
-
-        log.debug("Found {} similar users for user {}", similarUserIds.size(), userId);
+        // Find neighbours by preference-vector KNN (index-backed), fall back to co-rating overlap
+        Map<Long, Double> neighbours = vectorSearchService.findSimilarUsers(userId, neighborCount);
 
-        if (similarUserIds.isEmpty()) {
-            return List.of();
+        if (neighbours.isEmpty()) {
+            neighbours = findNeighboursByCommonRatings(userId, ratedMovieIds, userRatings);
         }
 
-        // Calculate user similarity scores
-        Map<Long, Double> userSimilarities = calculateUserSimilarities(userId, similarUserIds, userRatings);
+        log.debug("Found {} similar users for user {}", neighbours.size(), userId);
 
-        // Get top similar users
-        List<Long> topSimilarUsers = userSimilarities.entrySet().stream()
-                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
-                .limit(10)
-                .map(Map.Entry::getKey)
-                .toList();
+        if (neighbours.isEmpty()) {
+            return List.of();
+        }
 
-        // Get movies highly rated by similar users
+        // Get movies highly rated by similar users (single query for all neighbours)
         Map<Long, Double> movieScores = new HashMap<>();
+        List<Object[]> neighbourRatings = ratingRepository.findRatingsByUserIdsAtLeast(
+                new ArrayList<>(neighbours.keySet()),
+                4
+        );
 
-        for (Long similarUserId : topSimilarUsers) {
-            Double similarity = userSimilarities.get(similarUserId);
-            List<Rating> similarUserRatings = ratingRepository.findByUserId(similarUserId);
+        for (Object[] row : neighbourRatings) {
+            Long neighbourId = (Long) row[0];
+            Long movieId = (Long) row[1];
+            Integer rating = (Integer) row[2];
 
-            for (Rating rating : similarUserRatings) {
-                Long movieId = rating.getMovie().getId();
-                if (!ratedMovieIds.contains(movieId) && rating.getRating() >= 4) {
-                    movieScores.merge(movieId, rating.getRating() * similarity, Double::sum);
-                }
+            if (!ratedMovieIds.contains(movieId)) {
+                movieScores.merge(movieId, rating * neighbours.get(neighbourId), Double::sum);
             }
         }
 
@@ -199,6 +197,35 @@ public class RecommendationService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Legacy neighbour search for users without a preference vector
+     * Finds users sharing enough rated movies and ranks them by Pearson correlation
+     */
+    private Map<Long, Double> findNeighboursByCommonRatings(Long userId, Set<Long> ratedMovieIds,
+                                                           List<Rating> userRatings) {
+        List<Long> similarUserIds = ratingRepository.findSimilarUsers(
+                userId,
+                new ArrayList<>(ratedMovieIds),
+                (long) MIN_COMMON_RATINGS
+        );
+
+        if (similarUserIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, Double> userSimilarities = calculateUserSimilarities(userId, similarUserIds, userRatings);
+
+        return userSimilarities.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                .limit(neighborCount)
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        Map.Entry::getValue,
+                        (a, b) -> a,
+                        LinkedHashMap::new
+                ));
+    }
+
     /**
      * Hybrid approach combining content-based and collaborative filtering
      */
@@ -226,9 +253,28 @@ public class RecommendationService {
             }
         }
 
-        return mergedMap.values().stream()
-                .limit(limit)
-                .collect(Collectors.toList());
+        List<MovieDTO> merged = new ArrayList<>(mergedMap.values());
+
+        if (!mmrReranker.isEnabled() || merged.size() <= limit) {
+            return merged.stream()
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+
+        // Diversity stage: blended rank is the relevance signal, embeddings supply similarity
+        Map<Long, Double> rankScores = new HashMap<>();
+        for (int i = 0; i < merged.size(); i++) {
+            rankScores.put(merged.get(i).getId(), 1.0 - (double) i / merged.size());
+        }
+
+        Map<Long, float[]> embeddings = vectorSearchService.getMovieEmbeddings(rankScores.keySet());
+
+        return new ArrayList<>(mmrReranker.rerank(
+                merged,
+                movie -> rankScores.get(movie.getId()),
+                movie -> embeddings.get(movie.getId()),
+                limit
+        ));
     }
 
     /**
@@ -279,7 +325,10 @@ public class RecommendationService {
                         similarUserRatingsMap,
                         commonMovies
                 );
-                similarities.put(similarUserId, similarity);
+                // Opposite taste would turn the neighbour's high ratings into negative scores
+                if (similarity > 0) {
+                    similarities.put(similarUserId, similarity);
+                }
             }
         }
 
@@ -0,0 +1,213 @@
+package com.movieapp.service;
+
+import com.movieapp.repository.MovieRepository;
+import com.movieapp.util.EmbeddingProjection;
+import com.pgvector.PGvector;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Maintains the low-dimension embedding tier (movies.embedding_reduced)
+ * and an optional in-memory copy of it for brute-force coarse search.
+ */
+@Service
+@Slf4j
+public class ReducedEmbeddingService {
+
+    private static final int MAX_BATCHES_PER_RUN = 50;
+
+    private final MovieRepository movieRepository;
+    private final EmbeddingProjection projection;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final boolean inMemoryIndexEnabled;
+
+    // Immutable snapshot swapped atomically on refresh
+    private volatile ReducedIndex index = new ReducedIndex(new long[0], new float[0], 0);
+    // Reduced tier fingerprint the index was loaded at (see findReducedEmbeddingVersion)
+    private volatile String indexVersion;
+
+    public ReducedEmbeddingService(
+            MovieRepository movieRepository,
+            EmbeddingProjection projection,
+            PlatformTransactionManager transactionManager,
+            @Value("${vector-search.reduced.batch-size:200}") int batchSize,
+            @Value("${vector-search.two-stage.mode:off}") String twoStageMode) {
+
+        this.movieRepository = movieRepository;
+        this.projection = projection;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.inMemoryIndexEnabled = "memory".equalsIgnoreCase(twoStageMode);
+    }
+
+    /**
+     * Project a full embedding into the reduced space
+     */
+    public float[] reduce(float[] embedding) {
+        return projection.project(embedding);
+    }
+
+    /**
+     * Background job: compute missing or stale reduced embeddings, then refresh the in-memory index
+     * when the reduced tier changed (movies embedded since the last run also write it inline)
+     */
+    @Scheduled(
+            initialDelayString = "${vector-search.reduced.initial-delay-ms:60000}",
+            fixedDelayString = "${vector-search.reduced.backfill-interval-ms:300000}")
+    public void backfillReducedEmbeddings() {
+        int updated = 0;
+
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+            Integer count = transactionTemplate.execute(status -> processBatch());
+            if (count == null || count == 0) {
+                break;
+            }
+            updated += count;
+            if (count < batchSize) {
+                break;
+            }
+        }
+
+        if (updated > 0) {
+            log.info("Computed {} reduced embeddings", updated);
+        }
+
+        if (inMemoryIndexEnabled
+                && !Objects.equals(movieRepository.findReducedEmbeddingVersion(), indexVersion)) {
+            refreshIndex();
+        }
+    }
+
+    private int processBatch() {
+        List<Object[]> rows = movieRepository.findMoviesNeedingReducedEmbedding(batchSize);
+
+        int processed = 0;
+        for (Object[] row : rows) {
+            Long movieId = ((Number) row[0]).longValue();
+            try {
+                float[] reduced = projection.project(new PGvector((String) row[1]).toArray());
+                movieRepository.updateReducedEmbedding(movieId, toVectorString(reduced));
+                processed++;
+            } catch (SQLException | IllegalArgumentException e) {
+                log.warn("Skipping reduced embedding for movie {}: {}", movieId, e.getMessage());
+            }
+        }
+        return processed;
+    }
+
+    /**
+     * Reload all reduced embeddings into memory (normalized, row-major)
+     */
+    public void refreshIndex() {
+        // Version read first: a write racing the load shows up as a change on the next run
+        String version = movieRepository.findReducedEmbeddingVersion();
+        List<Object[]> rows = transactionTemplate.execute(status -> movieRepository.findAllReducedEmbeddings());
+        if (rows == null) {
+            return;
+        }
+
+        int dim = projection.getTargetDimension();
+        long[] ids = new long[rows.size()];
+        float[] vectors = new float[rows.size() * dim];
+        int n = 0;
+
+        for (Object[] row : rows) {
+            try {
+                float[] vector = new PGvector((String) row[1]).toArray();
+                if (vector.length != dim) continue;
+
+                normalizeInto(vector, vectors, n * dim);
+                ids[n++] = ((Number) row[0]).longValue();
+            } catch (SQLException e) {
+                log.warn("Could not parse reduced embedding for movie {}", row[0]);
+            }
+        }
+
+        index = new ReducedIndex(Arrays.copyOf(ids, n), Arrays.copyOf(vectors, n * dim), dim);
+        indexVersion = version;
+        log.info("Reduced embedding index refreshed: {} movies", n);
+    }
+
+    /**
+     * Brute-force coarse search over the in-memory reduced vectors
+     * Returns movie ids of the top shortlist candidates, most similar first
+     */
+    public List<Long> coarseSearch(float[] reducedQuery, Collection<Long> excludeMovieIds, int shortlist) {
+        ReducedIndex snapshot = index;
+        int dim = snapshot.dimension();
+        if (snapshot.size() == 0 || reducedQuery.length != dim) {
+            return List.of();
+        }
+
+        float[] query = new float[dim];
+        normalizeInto(reducedQuery, query, 0);
+
+        Set<Long> excluded = new HashSet<>(excludeMovieIds);
+
+        // Min-heap of (score, position) keeping the best shortlist entries
+        PriorityQueue<double[]> heap = new PriorityQueue<>(shortlist + 1, Comparator.comparingDouble(e -> e[0]));
+        float[] vectors = snapshot.vectors();
+
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (excluded.contains(snapshot.ids()[i])) continue;
+
+            double score = 0.0;
+            int offset = i * dim;
+            for (int d = 0; d < dim; d++) {
+                score += query[d] * vectors[offset + d];
+            }
+
+            if (heap.size() < shortlist) {
+                heap.add(new double[]{score, i});
+            } else if (score > heap.peek()[0]) {
+                heap.poll();
+                heap.add(new double[]{score, i});
+            }
+        }
+
+        List<Long> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(snapshot.ids()[(int) heap.poll()[1]]);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * PostgreSQL vector literal, e.g. [0.1,0.2,0.3]
+     */
+    public String toVectorString(float[] vector) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) sb.append(",");
+            sb.append(vector[i]);
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    private void normalizeInto(float[] source, float[] target, int offset) {
+        double norm = 0.0;
+        for (float v : source) {
+            norm += v * v;
+        }
+        float inverse = norm > 0 ? (float) (1.0 / Math.sqrt(norm)) : 0f;
+        for (int i = 0; i < source.length; i++) {
+            target[offset + i] = source[i] * inverse;
+        }
+    }
+
+    private record ReducedIndex(long[] ids, float[] vectors, int dimension) {
+        int size() {
+            return ids.length;
+        }
+    }
+}
@@ -5,11 +5,13 @@ import com.movieapp.dto.MovieDTO;
 import com.movieapp.dto.TMDbMovieResponse;
 import com.movieapp.dto.TMDbSearchResponse;
 import com.movieapp.mapper.MovieMapper;
+import com.movieapp.util.Bulkhead;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.Refill;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpHeaders;
@@ -27,13 +29,15 @@ public class TMDbClient {
     private final RestClient restClient;
     private final String apiKey;
     private final Bucket rateLimiter;
+    private final Bulkhead bulkhead;
 
     private final MovieMapper movieMapper;
 
     public TMDbClient(
             @Value("${tmdb.api.key}") String apiKey,
             @Value("${tmdb.api.base-url}") String baseUrl,
-            @Value("${tmdb.api.rate-limit.requests-per-second:4}") int requestsPerSecond, MovieMapper movieMapper){
+            @Value("${tmdb.api.rate-limit.requests-per-second:4}") int requestsPerSecond, MovieMapper movieMapper,
+            @Qualifier("tmdbBulkhead") Bulkhead bulkhead){
 
         this.apiKey = apiKey;
         this.restClient = RestClient.builder()
@@ -41,6 +45,7 @@ public class TMDbClient {
                 .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
                 .build();
         this.movieMapper = movieMapper;
+        this.bulkhead = bulkhead;
 
         // TMDb allows 40 requests per 10 seconds, we'll be conservative
         Bandwidth limit = Bandwidth.classic(
@@ -58,14 +63,14 @@ public class TMDbClient {
         checkRateLimit();
         log.debug("Fetching movie details from TMDb: {}", tmdbId);
 
-        TMDbMovieResponse response = restClient.get()
+        TMDbMovieResponse response = bulkhead.execute(() -> restClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/movie/{id}")
                         .queryParam("api_key", apiKey)
                         .queryParam("append_to_response", "credits,keywords")
                         .build(tmdbId))
                 .retrieve()
-                .body(TMDbMovieResponse.class);
+                .body(TMDbMovieResponse.class));
 
 
         return movieMapper.mapToMovieDTO(response);
@@ -77,7 +82,7 @@ public class TMDbClient {
 
         log.debug("Searching movies on TMDb: query={}, page={}", query, page);
 
-        TMDbSearchResponse response = restClient.get()
+        TMDbSearchResponse response = bulkhead.execute(() -> restClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/search/movie")
                         .queryParam("api_key", apiKey)
@@ -85,7 +90,7 @@ public class TMDbClient {
                         .queryParam("page", page)
                         .build())
                 .retrieve()
-                .body(TMDbSearchResponse.class);
+                .body(TMDbSearchResponse.class));
 
         if (response == null || response.getResults() == null) {
             return List.of();
@@ -102,14 +107,14 @@ public class TMDbClient {
 
         log.debug("Fetching popular movies from TMDb: page={}", page);
 
-        TMDbSearchResponse response = restClient.get()
+        TMDbSearchResponse response = bulkhead.execute(() -> restClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/movie/popular")
                         .queryParam("api_key", apiKey)
                         .queryParam("page", page)
                         .build())
                 .retrieve()
-                .body(TMDbSearchResponse.class);
+                .body(TMDbSearchResponse.class));
 
         if (response == null || response.getResults() == null) {
             return List.of();
@@ -128,7 +133,7 @@ public class TMDbClient {
 
         log.debug("Fetching movies by genre from TMDb: genreId={}, page={}", genreId, page);
 
-        TMDbSearchResponse response = restClient.get()
+        TMDbSearchResponse response = bulkhead.execute(() -> restClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/discover/movie")
                         .queryParam("api_key", apiKey)
@@ -138,7 +143,7 @@ public class TMDbClient {
                         .queryParam("page", page)
                         .build())
                 .retrieve()
-                .body(TMDbSearchResponse.class);
+                .body(TMDbSearchResponse.class));
 
         if (response == null || response.getResults() == null) {
             return List.of();
@@ -155,14 +160,14 @@ public class TMDbClient {
 
         log.debug("Fetching top rated movies from TMDb: page={}", page);
 
-        TMDbSearchResponse response = restClient.get()
+        TMDbSearchResponse response = bulkhead.execute(() -> restClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/movie/top_rated")
                         .queryParam("api_key", apiKey)
                         .queryParam("page", page)
                         .build())
                 .retrieve()
-                .body(TMDbSearchResponse.class);
+                .body(TMDbSearchResponse.class));
 
         if (response == null || response.getResults() == null) {
             return List.of();
@@ -192,13 +197,13 @@ public class TMDbClient {
         log.debug("Fetching keywords for movie {} from TMDb", tmdbId);
 
         try {
-            TMDbKeywordsResponse response = restClient.get()
+            TMDbKeywordsResponse response = bulkhead.execute(() -> restClient.get()
                     .uri(uriBuilder -> uriBuilder
                             .path("/movie/{id}/keywords")
                             .queryParam("api_key", apiKey)
                             .build(tmdbId))
                     .retrieve()
-                    .body(TMDbKeywordsResponse.class);
+                    .body(TMDbKeywordsResponse.class));
 
             if (response == null || response.getKeywords() == null) {
                 log.debug("No keywords found for movie {}", tmdbId);
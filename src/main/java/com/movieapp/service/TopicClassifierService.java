@@ -0,0 +1,233 @@
+package com.movieapp.service;
+
+import com.movieapp.util.AdaptiveConcurrencyLimiter.Priority;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Local movie / off-topic classifier for chat queries.
+ * Compares the query embedding against centroids of seed phrases for each class,
+ * so topic validation needs no extra model call beyond the embedding used for retrieval.
+ * Centroids are built in the background at startup; until they are ready every query is allowed through.
+ */
+@Service
+@Slf4j
+public class TopicClassifierService {
+
+    private static final List<String> MOVIE_SEEDS = List.of(
+            "Recommend me a good movie to watch tonight",
+            "What are some films similar to Inception?",
+            "Who directed The Godfather?",
+            "Suggest a feel-good comedy for the weekend",
+            "Which actors starred in Pulp Fiction?",
+            "I want a scary horror film with a twist ending",
+            "What is the plot of Interstellar about?",
+            "Best animated movies for kids",
+            "Give me sci-fi classics from the 80s",
+            "Is The Dark Knight worth watching?",
+            "Something like Breaking Bad but as a film",
+            "Romantic dramas that will make me cry",
+            "Christopher Nolan's best work",
+            "A thriller with a great soundtrack",
+            "Underrated war films I should see"
+    );
+
+    private static final List<String> OFF_TOPIC_SEEDS = List.of(
+            "What is the weather like today?",
+            "How do I fix a null pointer exception in Java?",
+            "Write me a poem about the ocean",
+            "What is the capital of Australia?",
+            "How many calories are in a banana?",
+            "Help me with my math homework",
+            "What is the stock price of Apple?",
+            "How do I reset my router?",
+            "Translate this sentence into Spanish",
+            "What are the symptoms of the flu?",
+            "Explain how blockchain works",
+            "Give me a recipe for pasta carbonara",
+            "Who won the football match yesterday?",
+            "How do I learn to play guitar?",
+            "Book me a flight to Paris"
+    );
+
+    private static final long RETRY_INTERVAL_MS = 60_000;
+
+    private final OllamaEmbeddingService embeddingService;
+    private final AsyncTaskExecutor executor;
+    private final String configuredThreshold;
+
+    // Built off the request path; retried after RETRY_INTERVAL_MS if Ollama was unavailable
+    private volatile Centroids centroids;
+    private volatile long nextAttemptAt = 0;
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    public TopicClassifierService(
+            OllamaEmbeddingService embeddingService,
+            @Qualifier("chatStreamExecutor") AsyncTaskExecutor executor,
+            @Value("${chat.topic-classifier.threshold:}") String configuredThreshold) {
+
+        this.embeddingService = embeddingService;
+        this.executor = executor;
+        this.configuredThreshold = configuredThreshold;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        scheduleBuild();
+    }
+
+    /**
+     * Classify a query by its embedding
+     * Returns true when the query is closer to the movie centroid than the off-topic one by the threshold margin.
+     * If the embedding or centroids are unavailable the query is allowed through.
+     */
+    public boolean isMovieRelated(float[] queryEmbedding) {
+        Centroids current = getCentroids();
+        if (current == null || !embeddingService.isValidEmbedding(queryEmbedding)
+                || queryEmbedding.length != current.movie().length) {
+            return true;
+        }
+
+        double margin = margin(queryEmbedding, current);
+        log.debug("Topic margin {} (threshold {})", margin, current.threshold());
+        return margin >= current.threshold();
+    }
+
+    private Centroids getCentroids() {
+        Centroids current = centroids;
+        if (current == null) {
+            scheduleBuild();
+        }
+        return current;
+    }
+
+    /**
+     * Start building the centroids in the background unless a build is running or the retry delay has not passed
+     */
+    private void scheduleBuild() {
+        if (System.currentTimeMillis() < nextAttemptAt || !building.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    Centroids built = buildCentroids();
+                    if (built != null) {
+                        centroids = built;
+                    } else {
+                        nextAttemptAt = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+                    }
+                } catch (Exception e) {
+                    log.warn("Topic classifier could not be built: {}", e.getMessage());
+                    nextAttemptAt = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+                } finally {
+                    building.set(false);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            building.set(false);
+            log.debug("Topic classifier build skipped, executor saturated");
+        }
+    }
+
+    /**
+     * Embed the seed phrases, average them per class and calibrate the decision threshold
+     */
+    private Centroids buildCentroids() {
+        long start = System.currentTimeMillis();
+
+        float[][] movieEmbeddings = embedAll(MOVIE_SEEDS);
+        float[][] offTopicEmbeddings = embedAll(OFF_TOPIC_SEEDS);
+        if (movieEmbeddings == null || offTopicEmbeddings == null) {
+            log.warn("Topic classifier seeds could not be embedded, allowing all queries for now");
+            return null;
+        }
+
+        Centroids uncalibrated = new Centroids(centroid(movieEmbeddings), centroid(offTopicEmbeddings), 0.0);
+        double threshold = configuredThreshold.isBlank()
+                ? calibrate(movieEmbeddings, offTopicEmbeddings, uncalibrated)
+                : Double.parseDouble(configuredThreshold);
+
+        log.info("Topic classifier ready in {} ms (threshold {})", System.currentTimeMillis() - start, threshold);
+        return new Centroids(uncalibrated.movie(), uncalibrated.offTopic(), threshold);
+    }
+
+    /**
+     * Place the threshold between the classes on the seed set:
+     * midway between the weakest movie seed and the strongest off-topic seed when they separate,
+     * otherwise midway between the class means
+     */
+    private double calibrate(float[][] movieEmbeddings, float[][] offTopicEmbeddings, Centroids centroids) {
+        double minMovie = Double.MAX_VALUE;
+        double meanMovie = 0.0;
+        for (float[] embedding : movieEmbeddings) {
+            double margin = margin(embedding, centroids);
+            minMovie = Math.min(minMovie, margin);
+            meanMovie += margin / movieEmbeddings.length;
+        }
+
+        double maxOffTopic = -Double.MAX_VALUE;
+        double meanOffTopic = 0.0;
+        for (float[] embedding : offTopicEmbeddings) {
+            double margin = margin(embedding, centroids);
+            maxOffTopic = Math.max(maxOffTopic, margin);
+            meanOffTopic += margin / offTopicEmbeddings.length;
+        }
+
+        if (minMovie > maxOffTopic) {
+            return (minMovie + maxOffTopic) / 2;
+        }
+        log.warn("Topic seed classes overlap (min movie {} <= max off-topic {}), using mean midpoint",
+                minMovie, maxOffTopic);
+        return (meanMovie + meanOffTopic) / 2;
+    }
+
+    private double margin(float[] embedding, Centroids centroids) {
+        return embeddingService.cosineSimilarity(embedding, centroids.movie())
+                - embeddingService.cosineSimilarity(embedding, centroids.offTopic());
+    }
+
+    private float[][] embedAll(List<String> texts) {
+        float[][] embeddings = new float[texts.size()][];
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings[i] = embeddingService.generateEmbedding(texts.get(i), Priority.BACKGROUND);
+            if (!embeddingService.isValidEmbedding(embeddings[i])) {
+                return null;
+            }
+        }
+        return embeddings;
+    }
+
+    /**
+     * Mean of the normalized vectors
+     */
+    private float[] centroid(float[][] vectors) {
+        float[] sum = new float[vectors[0].length];
+        for (float[] vector : vectors) {
+            double norm = 0.0;
+            for (float v : vector) {
+                norm += v * v;
+            }
+            float inverse = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += vector[i] * inverse;
+            }
+        }
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] /= vectors.length;
+        }
+        return sum;
+    }
+
+    private record Centroids(float[] movie, float[] offTopic, double threshold) {}
+}
@@ -0,0 +1,282 @@
+package com.movieapp.service;
+
+import com.movieapp.dto.VectorIndexReportDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * Maintenance tooling for the pgvector HNSW indexes created in V10 and V14.
+ * Runs outside JPA transactions because CREATE INDEX CONCURRENTLY cannot run inside one.
+ */
+@Service
+@Slf4j
+public class VectorIndexService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String maintenanceWorkMem;
+
+    public VectorIndexService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${vector-search.index.maintenance-work-mem:512MB}") String maintenanceWorkMem) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maintenanceWorkMem = maintenanceWorkMem;
+    }
+
+    /**
+     * Rebuild an HNSW index with new parameters without blocking writes.
+     * Builds a replacement concurrently, swaps names in one short transaction, then drops the old index.
+     */
+    public VectorIndexReportDTO rebuildIndex(IndexTarget target, int m, int efConstruction) {
+        if (m < 2 || m > 100) {
+            throw new IllegalArgumentException("m must be between 2 and 100");
+        }
+        if (efConstruction < 2 * m || efConstruction > 1000) {
+            throw new IllegalArgumentException("ef_construction must be between 2*m and 1000");
+        }
+
+        String replacement = target.getIndexName() + "_rebuild";
+        String retired = target.getIndexName() + "_old";
+
+        log.info("Rebuilding {} with m={}, ef_construction={}", target.getIndexName(), m, efConstruction);
+        long start = System.nanoTime();
+
+        // Step 1: Build the replacement (a failed previous run leaves an INVALID index behind)
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (Statement st = con.createStatement()) {
+                st.execute("SET maintenance_work_mem = '" + maintenanceWorkMem + "'");
+                st.execute("DROP INDEX CONCURRENTLY IF EXISTS " + replacement);
+                st.execute(String.format(
+                        "CREATE INDEX CONCURRENTLY %s ON %s USING hnsw (%s vector_cosine_ops) " +
+                                "WITH (m = %d, ef_construction = %d)",
+                        replacement, target.getTable(), target.getColumn(), m, efConstruction));
+            } finally {
+                try (Statement st = con.createStatement()) {
+                    st.execute("RESET maintenance_work_mem");
+                }
+            }
+            return null;
+        });
+
+        // Step 2: Swap names atomically
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS " + target.getIndexName() + " RENAME TO " + retired);
+            jdbcTemplate.execute("ALTER INDEX " + replacement + " RENAME TO " + target.getIndexName());
+        });
+
+        // Step 3: Drop the old index without blocking readers
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + retired);
+
+        log.info("Rebuilt {} in {} ms", target.getIndexName(), (System.nanoTime() - start) / 1_000_000);
+
+        return VectorIndexReportDTO.builder()
+                .indexName(target.getIndexName())
+                .indexDefinition(getIndexDefinition(target))
+                .results(List.of())
+                .build();
+    }
+
+    /**
+     * Current definition of the index as reported by pg_indexes
+     */
+    public String getIndexDefinition(IndexTarget target) {
+        List<String> definitions = jdbcTemplate.queryForList(
+                "SELECT indexdef FROM pg_indexes WHERE indexname = ?",
+                String.class,
+                target.getIndexName()
+        );
+        return definitions.isEmpty() ? null : definitions.get(0);
+    }
+
+    /**
+     * Measure recall and latency of the HNSW index against an exact brute-force scan.
+     * Query vectors are sampled from the indexed table itself (excluding the sampled row).
+     */
+    public VectorIndexReportDTO benchmarkRecall(IndexTarget target, int sampleSize, int k, List<Integer> efSearchValues) {
+        if (sampleSize < 1 || sampleSize > 1000) {
+            throw new IllegalArgumentException("sampleSize must be between 1 and 1000");
+        }
+        if (k < 1 || k > 100) {
+            throw new IllegalArgumentException("k must be between 1 and 100");
+        }
+        for (Integer ef : efSearchValues) {
+            if (ef == null || ef < 1 || ef > 1000) {
+                throw new IllegalArgumentException("ef_search values must be between 1 and 1000");
+            }
+        }
+
+        log.info("Benchmarking {}: sample={}, k={}, ef_search={}",
+                target.getIndexName(), sampleSize, k, efSearchValues);
+
+        return jdbcTemplate.execute((ConnectionCallback<VectorIndexReportDTO>) con -> {
+            try {
+                Map<Long, String> sample = sampleVectors(con, target, sampleSize);
+
+                // Exact baseline: disabling index scans forces a sequential scan + sort
+                setSession(con, "enable_indexscan", "off");
+                Map<Long, Set<Long>> exact = new HashMap<>();
+                double[] exactLatencies = new double[sample.size()];
+                int i = 0;
+                for (Map.Entry<Long, String> entry : sample.entrySet()) {
+                    long start = System.nanoTime();
+                    exact.put(entry.getKey(), nearestNeighbours(con, target, entry.getKey(), entry.getValue(), k));
+                    exactLatencies[i++] = (System.nanoTime() - start) / 1_000_000.0;
+                }
+                resetSession(con, "enable_indexscan");
+
+                List<VectorIndexReportDTO.EfSearchResult> results = new ArrayList<>();
+                for (int efSearch : efSearchValues) {
+                    setSession(con, "hnsw.ef_search", String.valueOf(efSearch));
+
+                    double[] latencies = new double[sample.size()];
+                    double recallSum = 0.0;
+                    int j = 0;
+                    for (Map.Entry<Long, String> entry : sample.entrySet()) {
+                        long start = System.nanoTime();
+                        Set<Long> approximate = nearestNeighbours(con, target, entry.getKey(), entry.getValue(), k);
+                        latencies[j++] = (System.nanoTime() - start) / 1_000_000.0;
+
+                        Set<Long> truth = exact.get(entry.getKey());
+                        if (!truth.isEmpty()) {
+                            approximate.retainAll(truth);
+                            recallSum += (double) approximate.size() / truth.size();
+                        } else {
+                            recallSum += 1.0;
+                        }
+                    }
+
+                    results.add(VectorIndexReportDTO.EfSearchResult.builder()
+                            .efSearch(efSearch)
+                            .recall(sample.isEmpty() ? 0.0 : recallSum / sample.size())
+                            .avgLatencyMs(average(latencies))
+                            .p95LatencyMs(percentile(latencies, 0.95))
+                            .build());
+                }
+
+                return VectorIndexReportDTO.builder()
+                        .indexName(target.getIndexName())
+                        .indexDefinition(getIndexDefinition(target))
+                        .sampleSize(sample.size())
+                        .k(k)
+                        .exactAvgLatencyMs(average(exactLatencies))
+                        .results(results)
+                        .build();
+            } finally {
+                resetSession(con, "enable_indexscan");
+                resetSession(con, "hnsw.ef_search");
+            }
+        });
+    }
+
+    private Map<Long, String> sampleVectors(Connection con, IndexTarget target, int sampleSize) throws SQLException {
+        Map<Long, String> sample = new LinkedHashMap<>();
+        String sql = String.format(
+                "SELECT id, %1$s::text FROM %2$s WHERE %1$s IS NOT NULL ORDER BY random() LIMIT ?",
+                target.getColumn(), target.getTable());
+
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, sampleSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    sample.put(rs.getLong(1), rs.getString(2));
+                }
+            }
+        }
+        return sample;
+    }
+
+    private Set<Long> nearestNeighbours(Connection con, IndexTarget target, Long excludeId,
+                                        String vector, int k) throws SQLException {
+        Set<Long> ids = new HashSet<>();
+        String sql = String.format(
+                "SELECT id FROM %1$s WHERE %2$s IS NOT NULL AND id <> ? " +
+                        "ORDER BY %2$s <=> CAST(? AS vector) LIMIT ?",
+                target.getTable(), target.getColumn());
+
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setLong(1, excludeId);
+            ps.setString(2, vector);
+            ps.setInt(3, k);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private void setSession(Connection con, String name, String value) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT set_config(?, ?, false)")) {
+            ps.setString(1, name);
+            ps.setString(2, value);
+            ps.execute();
+        }
+    }
+
+    private void resetSession(Connection con, String name) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("RESET " + name);
+        }
+    }
+
+    private double average(double[] values) {
+        return values.length == 0 ? 0.0 : Arrays.stream(values).average().orElse(0.0);
+    }
+
+    private double percentile(double[] values, double p) {
+        if (values.length == 0) {
+            return 0.0;
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    /**
+     * HNSW indexes managed by this service
+     */
+    public enum IndexTarget {
+        MOVIES("movies", "embedding", "idx_movies_embedding_hnsw"),
+        MOVIES_REDUCED("movies", "embedding_reduced", "idx_movies_embedding_reduced_hnsw"),
+        USERS("users", "preference_vector", "idx_users_preference_vector_hnsw");
+
+        private final String table;
+        private final String column;
+        private final String indexName;
+
+        IndexTarget(String table, String column, String indexName) {
+            this.table = table;
+            this.column = column;
+            this.indexName = indexName;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public String getIndexName() {
+            return indexName;
+        }
+    }
+}
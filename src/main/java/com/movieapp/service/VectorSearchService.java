@@ -7,19 +7,23 @@ import com.movieapp.entity.User;
 import com.movieapp.repository.MovieRepository;
 import com.movieapp.repository.RatingRepository;
 import com.movieapp.repository.UserRepository;
+import com.movieapp.util.MmrReranker;
 import com.pgvector.PGvector;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.sql.Date;
+import java.sql.SQLException;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class VectorSearchService {
 
@@ -27,6 +31,51 @@ public class VectorSearchService {
     private final UserRepository userRepository;
     private final RatingRepository ratingRepository;
     private final OllamaEmbeddingService ollamaService;
+    private final MmrReranker mmrReranker;
+    private final ReducedEmbeddingService reducedEmbeddingService;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // HNSW ef_search per query type (higher = better recall, slower)
+    private final int similarMoviesEfSearch;
+    private final int userRecommendationsEfSearch;
+    private final int semanticSearchEfSearch;
+    private final int userNeighboursEfSearch;
+
+    // Two-stage search: coarse shortlist on reduced embeddings, exact rescoring on full embeddings
+    private final TwoStageMode twoStageMode;
+    private final int shortlistMultiplier;
+    private static final int MAX_SHORTLIST = 1000;
+
+    public VectorSearchService(
+            MovieRepository movieRepository,
+            UserRepository userRepository,
+            RatingRepository ratingRepository,
+            OllamaEmbeddingService ollamaService,
+            MmrReranker mmrReranker,
+            ReducedEmbeddingService reducedEmbeddingService,
+            PlatformTransactionManager transactionManager,
+            @Value("${vector-search.ef-search.similar-movies:40}") int similarMoviesEfSearch,
+            @Value("${vector-search.ef-search.user-recommendations:100}") int userRecommendationsEfSearch,
+            @Value("${vector-search.ef-search.semantic-search:64}") int semanticSearchEfSearch,
+            @Value("${vector-search.ef-search.user-neighbours:40}") int userNeighboursEfSearch,
+            @Value("${vector-search.two-stage.mode:off}") String twoStageMode,
+            @Value("${vector-search.two-stage.shortlist-multiplier:10}") int shortlistMultiplier) {
+
+        this.movieRepository = movieRepository;
+        this.userRepository = userRepository;
+        this.ratingRepository = ratingRepository;
+        this.ollamaService = ollamaService;
+        this.mmrReranker = mmrReranker;
+        this.reducedEmbeddingService = reducedEmbeddingService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.similarMoviesEfSearch = similarMoviesEfSearch;
+        this.userRecommendationsEfSearch = userRecommendationsEfSearch;
+        this.semanticSearchEfSearch = semanticSearchEfSearch;
+        this.userNeighboursEfSearch = userNeighboursEfSearch;
+        this.twoStageMode = TwoStageMode.valueOf(twoStageMode.toUpperCase());
+        this.shortlistMultiplier = Math.max(1, shortlistMultiplier);
+    }
 
     /**
      * Find similar movies using vector similarity (content-based)
@@ -46,14 +95,22 @@ public class VectorSearchService {
         // Convert PGvector to string format for query
         String vectorStr = pgVectorToString(movie.getEmbedding());
 
-        // Execute KNN search
+        // Execute KNN search (over-fetch so the diversity stage has candidates to choose from)
+        int candidates = mmrReranker.candidatePoolSize(limit);
+
+        if (twoStageMode != TwoStageMode.OFF) {
+            return diversify(twoStageSearch(movie.getEmbedding().toArray(), List.of(movieId),
+                    similarMoviesEfSearch, candidates), limit);
+        }
+
+        applyEfSearch(similarMoviesEfSearch, candidates);
         List<Object[]> results = movieRepository.findSimilarMoviesByVector(
                 vectorStr,
                 movieId,
-                limit
+                candidates
         );
 
-        return mapToVectorSimilarityResults(results);
+        return diversify(mapToVectorSimilarityResults(results), limit);
     }
 
     /**
@@ -84,16 +141,167 @@ public class VectorSearchService {
         // Convert user vector to string
         String vectorStr = pgVectorToString(user.getPreferenceVector());
 
-        // Execute KNN search
+        // Execute KNN search (excluded movies are filtered after the index scan, so search wider)
+        int candidates = mmrReranker.candidatePoolSize(limit);
+
+        if (twoStageMode != TwoStageMode.OFF) {
+            return diversify(twoStageSearch(user.getPreferenceVector().toArray(), excludeMovieIds,
+                    userRecommendationsEfSearch, candidates), limit);
+        }
+
+        applyEfSearch(userRecommendationsEfSearch, candidates + excludeMovieIds.size());
         List<Object[]> results = movieRepository.findMoviesByUserVector(
                 vectorStr,
                 excludeMovieIds,
+                candidates
+        );
+
+        return diversify(mapToVectorSimilarityResults(results), limit);
+    }
+
+    /**
+     * Find users with similar taste by cosine over preference vectors (collaborative neighbours)
+     * Returns user id -> similarity, most similar first; users with no positive similarity are left out,
+     * since their ratings would count against a movie rather than for it
+     */
+    public Map<Long, Double> findSimilarUsers(Long userId, int limit) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        if (user.getPreferenceVector() == null) {
+            log.debug("User {} has no preference vector, cannot find neighbours", userId);
+            return Map.of();
+        }
+
+        String vectorStr = pgVectorToString(user.getPreferenceVector());
+
+        applyEfSearch(userNeighboursEfSearch, limit);
+        List<Object[]> results = userRepository.findSimilarUsersByVector(vectorStr, userId, limit);
+
+        Map<Long, Double> neighbours = new LinkedHashMap<>();
+        for (Object[] row : results) {
+            double similarity = ((Number) row[1]).doubleValue();
+            if (similarity > 0) {
+                neighbours.put(((Number) row[0]).longValue(), similarity);
+            }
+        }
+
+        log.debug("Found {} vector neighbours for user {}", neighbours.size(), userId);
+        return neighbours;
+    }
+
+    /**
+     * Load movie embeddings by id in one query
+     */
+    public Map<Long, float[]> getMovieEmbeddings(Collection<Long> movieIds) {
+        if (movieIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, float[]> embeddings = new HashMap<>();
+        for (Object[] row : movieRepository.findEmbeddingsByIds(movieIds)) {
+            try {
+                embeddings.put(((Number) row[0]).longValue(), new PGvector((String) row[1]).toArray());
+            } catch (SQLException e) {
+                log.warn("Could not parse embedding for movie {}: {}", row[0], e.getMessage());
+            }
+        }
+        return embeddings;
+    }
+
+    /**
+     * MMR re-ranking stage: trade relevance against diversity (e.g. collapse franchises)
+     */
+    private List<VectorSimilarityResult> diversify(List<VectorSimilarityResult> candidates, int limit) {
+        if (!mmrReranker.isEnabled() || candidates.size() <= limit) {
+            return candidates.stream().limit(limit).collect(Collectors.toList());
+        }
+
+        Map<Long, float[]> embeddings = getMovieEmbeddings(
+                candidates.stream().map(VectorSimilarityResult::getId).toList()
+        );
+
+        return new ArrayList<>(mmrReranker.rerank(
+                candidates,
+                VectorSimilarityResult::getSimilarity,
+                result -> embeddings.get(result.getId()),
+                limit
+        ));
+    }
+
+    /**
+     * Two-stage KNN: shortlist candidates on the reduced embedding, rescore exactly on the full embedding.
+     * MEMORY mode scans the in-memory reduced vectors; DATABASE mode (or a cold in-memory index) uses pgvector.
+     */
+    private List<VectorSimilarityResult> twoStageSearch(float[] query, List<Long> excludeMovieIds,
+                                                        int efSearch, int limit) {
+        float[] reduced = reducedEmbeddingService.reduce(query);
+        int shortlist = Math.min(MAX_SHORTLIST, Math.max(limit, limit * shortlistMultiplier));
+
+        if (twoStageMode == TwoStageMode.MEMORY) {
+            List<Long> candidateIds = reducedEmbeddingService.coarseSearch(reduced, excludeMovieIds, shortlist);
+            if (!candidateIds.isEmpty()) {
+                return rescoreInMemory(query, candidateIds, limit);
+            }
+            log.debug("In-memory reduced index is empty, falling back to database two-stage search");
+        }
+
+        applyEfSearch(efSearch, shortlist);
+        List<Object[]> results = movieRepository.findMoviesByVectorTwoStage(
+                floatArrayToString(query),
+                reducedEmbeddingService.toVectorString(reduced),
+                excludeMovieIds,
+                shortlist,
                 limit
         );
 
         return mapToVectorSimilarityResults(results);
     }
 
+    /**
+     * Exact cosine rescoring of a shortlist against full embeddings
+     */
+    private List<VectorSimilarityResult> rescoreInMemory(float[] query, List<Long> candidateIds, int limit) {
+        Map<Long, Double> scores = new HashMap<>();
+        getMovieEmbeddings(candidateIds).forEach((id, embedding) ->
+                scores.put(id, ollamaService.cosineSimilarity(query, embedding)));
+
+        List<Long> topIds = scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        Map<Long, Movie> movies = movieRepository.findAllById(topIds).stream()
+                .collect(Collectors.toMap(Movie::getId, m -> m));
+
+        List<VectorSimilarityResult> results = new ArrayList<>();
+        for (Long id : topIds) {
+            Movie movie = movies.get(id);
+            if (movie == null) continue;
+
+            results.add(VectorSimilarityResult.builder()
+                    .id(movie.getId())
+                    .tmdbId(movie.getTmdbId())
+                    .title(movie.getTitle())
+                    .posterPath(movie.getPosterPath())
+                    .avgRating(movie.getAvgRating())
+                    .releaseDate(movie.getReleaseDate())
+                    .similarity(scores.get(id))
+                    .build());
+        }
+        return results;
+    }
+
+    /**
+     * Set hnsw.ef_search for the current transaction
+     * The index never returns more than ef_search rows, so it is raised to at least the requested limit
+     */
+    private void applyEfSearch(int efSearch, int limit) {
+        int effective = Math.min(1000, Math.max(efSearch, limit));
+        movieRepository.setHnswEfSearch(String.valueOf(effective));
+    }
+
     /**
      * Convert PGvector to PostgreSQL vector string format
      * Example: [0.1, 0.2, 0.3, ...]
@@ -141,18 +349,35 @@ public class VectorSearchService {
 
     /**
      * Find movies similar to a text query (search by semantic meaning)
+     * The embedding call runs without a transaction; only the KNN query holds a connection
      */
     @Cacheable(value = "similar-movies", key = "#query")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<VectorSimilarityResult> searchMoviesBySemanticMeaning(String query, int limit) {
         log.info("Semantic search for: {}", query);
 
         // Generate embedding for the search query
         float[] queryEmbedding = ollamaService.generateEmbedding(query);
-        String vectorStr = floatArrayToString(queryEmbedding);
 
-        // Search using KNN
+        // Search using KNN (ef_search is transaction-scoped, so it must share the query's transaction)
+        return readOnlyTransaction.execute(status -> knnSearch(queryEmbedding, limit));
+    }
+
+    /**
+     * Semantic search with a query embedding the caller already has (e.g. shared with topic classification)
+     */
+    public List<VectorSimilarityResult> searchMoviesByEmbedding(float[] queryEmbedding, int limit) {
+        return knnSearch(queryEmbedding, limit);
+    }
+
+    private List<VectorSimilarityResult> knnSearch(float[] queryEmbedding, int limit) {
+        if (twoStageMode != TwoStageMode.OFF) {
+            return twoStageSearch(queryEmbedding, List.of(-1L), semanticSearchEfSearch, limit);
+        }
+
+        applyEfSearch(semanticSearchEfSearch, limit);
         List<Object[]> results = movieRepository.findSimilarMoviesByVector(
-                vectorStr,
+                floatArrayToString(queryEmbedding),
                 -1L, // Don't exclude any movie
                 limit
         );
@@ -169,4 +394,10 @@ public class VectorSearchService {
         sb.append("]");
         return sb.toString();
     }
+
+    private enum TwoStageMode {
+        OFF,        // single-stage KNN on the full embedding
+        DATABASE,   // pgvector HNSW on embedding_reduced + exact rescoring in SQL
+        MEMORY      // in-memory brute-force scan of reduced vectors + exact rescoring in Java
+    }
 }
\ No newline at end of file
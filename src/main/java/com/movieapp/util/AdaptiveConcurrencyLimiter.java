@@ -0,0 +1,311 @@
+package com.movieapp.util;
+
+import com.movieapp.exception.DownstreamBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.InterruptedIOException;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * AIMD concurrency limiter with a bounded priority queue, for a downstream that degrades under load (Ollama).
+ *
+ * The limit grows by 1/limit per call that completes within latencyTolerance x the operation's baseline
+ * latency, and shrinks by backoffRatio when a call is slower than that or times out. The latency judged is
+ * the call duration unless the caller derives a steadier signal from the result (e.g. time per generated
+ * token, which does not depend on answer length).
+ * Callers beyond the limit wait in a queue ordered by priority, then arrival; when the queue is full
+ * or the wait exceeds maxWaitMs the call fails fast with DownstreamBusyException (HTTP 429).
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    public enum Priority {
+        INTERACTIVE,    // user is waiting on the response (chat, query embeddings)
+        BACKGROUND      // catalogue sync and embedding backfill
+    }
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueCapacity;
+    private final long maxWaitMs;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(
+            Comparator.comparing((Waiter w) -> w.priority).thenComparingLong(w -> w.sequence));
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Guarded by lock
+    private double limit;
+    private int inFlight;
+    private final Map<Priority, Integer> queuedByPriority = new EnumMap<>(Priority.class);
+
+    // Decaying minimum latency per operation (chat and embeddings have very different latencies)
+    private final Map<String, Double> baselineNanos = new ConcurrentHashMap<>();
+    private volatile double averageLatencyNanos = 0;
+
+    private final Map<Priority, Timer> waitTimers = new EnumMap<>(Priority.class);
+    private final Counter rejected;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      int queueCapacity, long maxWaitMs,
+                                      double latencyTolerance, double backoffRatio,
+                                      MeterRegistry meterRegistry) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limiter " + name + " requires 1 <= min-limit <= max-limit");
+        }
+        if (backoffRatio <= 0.0 || backoffRatio >= 1.0) {
+            throw new IllegalArgumentException("Limiter " + name + " backoff-ratio must be between 0 and 1");
+        }
+
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitMs = maxWaitMs;
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+
+        for (Priority priority : Priority.values()) {
+            queuedByPriority.put(priority, 0);
+            waitTimers.put(priority, Timer.builder("downstream.limiter.wait")
+                    .description("Time spent queued before a call was admitted")
+                    .tag("downstream", name)
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry));
+            Gauge.builder("downstream.limiter.queue.depth", this, l -> l.getQueued(priority))
+                    .tag("downstream", name)
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("downstream.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("downstream", name)
+                .register(meterRegistry);
+        Gauge.builder("downstream.limiter.in-flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("downstream", name)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("downstream.limiter.rejected")
+                .tag("downstream", name)
+                .register(meterRegistry);
+
+        log.info("Adaptive limiter '{}' initialized: limit={} (min={}, max={}), queueCapacity={}, maxWait={}ms",
+                name, this.limit, minLimit, maxLimit, queueCapacity, maxWaitMs);
+    }
+
+    /**
+     * Run a blocking call once admitted by the limiter
+     * operation groups calls with comparable latency (e.g. "chat", "embedding") for the latency baseline
+     */
+    public <T, E extends Exception> T execute(Priority priority, String operation,
+                                              Bulkhead.BlockingCall<T, E> call) throws E {
+        return execute(priority, operation, call, null);
+    }
+
+    /**
+     * Run a blocking call once admitted by the limiter, judging load by a latency derived from the result
+     * latencySignal returns nanoseconds to compare with the operation's baseline, or a negative value for no sample
+     */
+    public <T, E extends Exception> T execute(Priority priority, String operation,
+                                              Bulkhead.BlockingCall<T, E> call,
+                                              ToLongFunction<? super T> latencySignal) throws E {
+        acquire(priority);
+
+        long start = System.nanoTime();
+        long signalNanos = -1;
+        boolean dropped = false;
+        try {
+            T result = call.execute();
+            signalNanos = latencySignal != null
+                    ? latencySignal.applyAsLong(result)
+                    : System.nanoTime() - start;
+            return result;
+        } catch (Exception e) {
+            // Read/connect timeout: the downstream is overloaded
+            dropped = e instanceof InterruptedIOException;
+            if (latencySignal == null) {
+                signalNanos = System.nanoTime() - start;
+            }
+            throw e;
+        } finally {
+            release(operation, System.nanoTime() - start, signalNanos, dropped);
+        }
+    }
+
+    private void acquire(Priority priority) {
+        long start = System.nanoTime();
+        Waiter waiter;
+
+        lock.lock();
+        try {
+            if (queue.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                waitTimers.get(priority).record(0, TimeUnit.NANOSECONDS);
+                return;
+            }
+
+            if (queue.size() >= queueCapacity) {
+                rejected.increment();
+                log.warn("Limiter '{}' queue full ({} queued, {} in flight, limit {})",
+                        name, queue.size(), inFlight, (int) limit);
+                throw new DownstreamBusyException(name + " is busy, please try again later", estimateRetryAfterSeconds());
+            }
+
+            waiter = new Waiter(priority, sequence.incrementAndGet(), lock.newCondition());
+            queue.add(waiter);
+            queuedByPriority.merge(priority, 1, Integer::sum);
+
+            long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+            try {
+                while (!waiter.admitted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abandon(waiter);
+                throw new DownstreamBusyException(name + " call interrupted while queued", 1);
+            }
+
+            if (!waiter.admitted) {
+                abandon(waiter);
+                rejected.increment();
+                log.warn("Limiter '{}' wait exceeded {} ms ({} priority)", name, maxWaitMs, priority);
+                throw new DownstreamBusyException(name + " is busy, please try again later", estimateRetryAfterSeconds());
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        waitTimers.get(priority).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Remove a waiter that gave up; if it was admitted in the meantime, hand its slot back
+     */
+    private void abandon(Waiter waiter) {
+        if (waiter.admitted) {
+            inFlight--;
+            admitWaiters();
+        } else if (queue.remove(waiter)) {
+            queuedByPriority.merge(waiter.priority, -1, Integer::sum);
+        }
+    }
+
+    private void release(String operation, long latencyNanos, long signalNanos, boolean dropped) {
+        averageLatencyNanos = averageLatencyNanos == 0
+                ? latencyNanos
+                : averageLatencyNanos * 0.9 + latencyNanos * 0.1;
+
+        boolean overloaded = dropped || (signalNanos >= 0 && isSlow(operation, signalNanos));
+
+        lock.lock();
+        try {
+            inFlight--;
+
+            double previous = limit;
+            if (overloaded) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (inFlight + 1 >= (int) limit) {
+                // Only grow when the current limit was actually in use
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            if ((int) previous != (int) limit) {
+                log.debug("Limiter '{}' limit {} -> {} ({} latency {} ms)",
+                        name, (int) previous, (int) limit, operation, latencyNanos / 1_000_000);
+            }
+
+            admitWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Must hold lock
+    private void admitWaiters() {
+        while (inFlight < (int) limit && !queue.isEmpty()) {
+            Waiter next = queue.poll();
+            queuedByPriority.merge(next.priority, -1, Integer::sum);
+            next.admitted = true;
+            inFlight++;
+            next.condition.signal();
+        }
+    }
+
+    /**
+     * Compare against a decaying minimum: drops immediately to faster samples, drifts slowly towards slower ones
+     */
+    private boolean isSlow(String operation, long latencyNanos) {
+        double baseline = baselineNanos.merge(operation, (double) latencyNanos,
+                (current, sample) -> sample < current ? sample : current + (sample - current) * 0.01);
+
+        return latencyNanos > baseline * latencyTolerance;
+    }
+
+    /**
+     * Rough time for the current queue to drain at the current limit
+     */
+    private long estimateRetryAfterSeconds() {
+        double perCallSeconds = averageLatencyNanos / 1_000_000_000.0;
+        double drainSeconds = (queue.size() + 1) * perCallSeconds / Math.max(1, (int) limit);
+        return Math.max(1, (long) Math.ceil(drainSeconds));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued(Priority priority) {
+        lock.lock();
+        try {
+            return queuedByPriority.get(priority);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Waiter {
+        private final Priority priority;
+        private final long sequence;
+        private final Condition condition;
+        private boolean admitted;   // guarded by lock
+
+        private Waiter(Priority priority, long sequence, Condition condition) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.condition = condition;
+        }
+    }
+}
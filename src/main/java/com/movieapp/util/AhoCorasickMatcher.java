@@ -0,0 +1,222 @@
+package com.movieapp.util;
+
+import java.util.*;
+
+/**
+ * Immutable Aho-Corasick automaton: finds every occurrence of a fixed set of patterns in one pass over the text.
+ * Matching is case-insensitive and only whole words count (a match must not be preceded or followed
+ * by a letter or digit), so "war" does not match inside "award".
+ *
+ * Built once per pattern set; safe to share between threads.
+ *
+ * @param <T> payload attached to each pattern
+ */
+public final class AhoCorasickMatcher<T> {
+
+    // Trie in flat arrays: node n has transitions labels[n][i] -> targets[n][i], labels sorted for binary search
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] failure;
+    private final int[] dictionaryLink;     // nearest node on the failure chain that ends a pattern, or -1
+    private final int[] patternLength;      // length of the pattern ending at a node, or 0
+    private final List<List<T>> payloads;   // payloads of the pattern ending at a node
+    private final int patternCount;
+
+    private AhoCorasickMatcher(Builder<T> builder) {
+        int size = builder.children.size();
+        this.labels = new char[size][];
+        this.targets = new int[size][];
+        this.failure = new int[size];
+        this.dictionaryLink = new int[size];
+        this.patternLength = builder.patternLength.stream().mapToInt(Integer::intValue).toArray();
+        this.payloads = builder.payloads;
+        this.patternCount = builder.patternCount;
+
+        for (int node = 0; node < size; node++) {
+            TreeMap<Character, Integer> sorted = new TreeMap<>(builder.children.get(node));
+            labels[node] = new char[sorted.size()];
+            targets[node] = new int[sorted.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : sorted.entrySet()) {
+                labels[node][i] = edge.getKey();
+                targets[node][i++] = edge.getValue();
+            }
+        }
+
+        buildLinks();
+    }
+
+    /**
+     * Breadth-first failure links; the dictionary link skips failure nodes that do not end a pattern
+     */
+    private void buildLinks() {
+        Deque<Integer> queue = new ArrayDeque<>();
+        failure[0] = 0;
+        dictionaryLink[0] = -1;
+        for (int child : targets[0]) {
+            failure[child] = 0;
+            dictionaryLink[child] = -1;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < labels[node].length; i++) {
+                char c = labels[node][i];
+                int child = targets[node][i];
+
+                int fallback = failure[node];
+                while (fallback != 0 && next(fallback, c) < 0) {
+                    fallback = failure[fallback];
+                }
+                int link = next(fallback, c);
+                failure[child] = link >= 0 && link != child ? link : 0;
+
+                int target = failure[child];
+                dictionaryLink[child] = patternLength[target] > 0 ? target : dictionaryLink[target];
+                queue.add(child);
+            }
+        }
+    }
+
+    private int next(int node, char c) {
+        int i = Arrays.binarySearch(labels[node], c);
+        return i >= 0 ? targets[node][i] : -1;
+    }
+
+    /**
+     * All whole-word matches, in order of their end position
+     */
+    public List<Match<T>> findAll(String text) {
+        List<Match<T>> matches = new ArrayList<>();
+        if (text == null || text.isEmpty() || patternCount == 0) {
+            return matches;
+        }
+
+        int node = 0;
+        for (int pos = 0; pos < text.length(); pos++) {
+            char c = Character.toLowerCase(text.charAt(pos));
+
+            int child;
+            while ((child = next(node, c)) < 0 && node != 0) {
+                node = failure[node];
+            }
+            node = Math.max(child, 0);
+
+            for (int out = patternLength[node] > 0 ? node : dictionaryLink[node]; out >= 0; out = dictionaryLink[out]) {
+                int end = pos + 1;
+                int start = end - patternLength[out];
+                if (isWordBoundary(text, start, end)) {
+                    for (T payload : payloads.get(out)) {
+                        matches.add(new Match<>(start, end, payload));
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Leftmost-longest matches that do not overlap ("The Godfather Part II" wins over "The Godfather")
+     */
+    public List<Match<T>> findNonOverlapping(String text) {
+        return longestNonOverlapping(findAll(text));
+    }
+
+    /**
+     * Leftmost-longest selection over an arbitrary (e.g. pre-filtered) list of matches
+     */
+    public static <T> List<Match<T>> longestNonOverlapping(List<Match<T>> matches) {
+        List<Match<T>> all = new ArrayList<>(matches);
+        all.sort(Comparator.comparingInt((Match<T> m) -> m.start()).thenComparingInt(m -> -(m.end() - m.start())));
+
+        List<Match<T>> result = new ArrayList<>();
+        int covered = 0;
+        int lastStart = -1;
+        int lastEnd = -1;
+        for (Match<T> match : all) {
+            if (match.start() == lastStart && match.end() == lastEnd) {
+                result.add(match);      // same span, different payload
+            } else if (match.start() >= covered) {
+                result.add(match);
+                covered = match.end();
+                lastStart = match.start();
+                lastEnd = match.end();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * True if at least one pattern occurs in the text
+     */
+    public boolean containsAny(String text) {
+        return !findAll(text).isEmpty();
+    }
+
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    private static boolean isWordBoundary(String text, int start, int end) {
+        return (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1)))
+                && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)));
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public record Match<T>(int start, int end, T payload) {}
+
+    public static final class Builder<T> {
+        private final List<Map<Character, Integer>> children = new ArrayList<>();
+        private final List<Integer> patternLength = new ArrayList<>();
+        private final List<List<T>> payloads = new ArrayList<>();
+        private int patternCount;
+
+        private Builder() {
+            addNode();
+        }
+
+        private int addNode() {
+            children.add(new HashMap<>(4));
+            patternLength.add(0);
+            payloads.add(List.of());
+            return children.size() - 1;
+        }
+
+        /**
+         * Add a pattern (case-insensitive); blank patterns are ignored, duplicates collect their payloads
+         */
+        public Builder<T> add(String pattern, T payload) {
+            if (pattern == null || pattern.isBlank()) {
+                return this;
+            }
+            String normalized = pattern.strip();
+
+            int node = 0;
+            for (int i = 0; i < normalized.length(); i++) {
+                char c = Character.toLowerCase(normalized.charAt(i));
+                Integer child = children.get(node).get(c);
+                if (child == null) {
+                    child = addNode();
+                    children.get(node).put(c, child);
+                }
+                node = child;
+            }
+
+            if (patternLength.get(node) == 0) {
+                patternLength.set(node, normalized.length());
+                payloads.set(node, new ArrayList<>(1));
+                patternCount++;
+            }
+            payloads.get(node).add(payload);
+            return this;
+        }
+
+        public AhoCorasickMatcher<T> build() {
+            return new AhoCorasickMatcher<>(this);
+        }
+    }
+}
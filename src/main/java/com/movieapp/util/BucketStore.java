@@ -0,0 +1,46 @@
+package com.movieapp.util;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Per-key token buckets (one per user or client), created on first use from the bandwidth for the key.
+ * Shared by the request-count limits of RateLimiter and the LLM token budget of LlmBudgetLimiter.
+ */
+public final class BucketStore {
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Function<String, Bandwidth> bandwidthForKey;
+
+    public BucketStore(Function<String, Bandwidth> bandwidthForKey) {
+        this.bandwidthForKey = bandwidthForKey;
+    }
+
+    /**
+     * Bucket for the key, created full on first use
+     */
+    public Bucket get(String key) {
+        return buckets.computeIfAbsent(key, k -> Bucket.builder()
+                .addLimit(bandwidthForKey.apply(k))
+                .build());
+    }
+
+    /**
+     * Bucket for the key if it was used before, otherwise null (monitoring without creating buckets)
+     */
+    public Bucket find(String key) {
+        return buckets.get(key);
+    }
+
+    public void remove(String key) {
+        buckets.remove(key);
+    }
+
+    public void clear() {
+        buckets.clear();
+    }
+}
@@ -0,0 +1,77 @@
+package com.movieapp.util;
+
+import com.movieapp.exception.DownstreamBusyException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Semaphore-based concurrency limit for one downstream service.
+ * With virtual threads the server no longer runs out of threads, so this is what
+ * stops thousands of in-flight requests from all hitting the same remote at once.
+ */
+@Slf4j
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long acquireTimeoutMs;
+    private final Semaphore permits;
+
+    public Bulkhead(String name, int maxConcurrent, long acquireTimeoutMs) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("max-concurrent for " + name + " must be at least 1");
+        }
+
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.permits = new Semaphore(maxConcurrent, true);
+
+        log.info("Bulkhead '{}' initialized: maxConcurrent={}, acquireTimeout={}ms",
+                name, maxConcurrent, acquireTimeoutMs);
+    }
+
+    /**
+     * Run a blocking call while holding a permit
+     * Waits up to acquireTimeoutMs for a permit, then fails with DownstreamBusyException
+     */
+    public <T, E extends Exception> T execute(BlockingCall<T, E> call) throws E {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DownstreamBusyException(name + " call interrupted while waiting for a permit");
+        }
+
+        if (!acquired) {
+            log.warn("Bulkhead '{}' saturated ({} in flight, {} waiting)", name, maxConcurrent, permits.getQueueLength());
+            throw new DownstreamBusyException(name + " is busy, please try again later");
+        }
+
+        try {
+            return call.execute();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getInFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    @FunctionalInterface
+    public interface BlockingCall<T, E extends Exception> {
+        T execute() throws E;
+    }
+}
@@ -0,0 +1,55 @@
+package com.movieapp.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cooperative cancellation for a long-running request (e.g. a chat job).
+ * Blocking calls register an abort action (such as OkHttp's Call::cancel); cancel() runs them all,
+ * and actions registered after cancellation run immediately.
+ */
+public class CancellationSignal {
+
+    private final List<Runnable> actions = new ArrayList<>();
+    private boolean cancelled;  // guarded by this
+
+    public void cancel() {
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            toRun = new ArrayList<>(actions);
+            actions.clear();
+        }
+        toRun.forEach(Runnable::run);
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Register an abort action for the current blocking step
+     */
+    public void onCancel(Runnable action) {
+        synchronized (this) {
+            if (!cancelled) {
+                actions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * Throw if cancelled; call between pipeline stages
+     */
+    public void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Request cancelled");
+        }
+    }
+}
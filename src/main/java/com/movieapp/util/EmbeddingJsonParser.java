@@ -0,0 +1,306 @@
+package com.movieapp.util;
+
+import okio.Buffer;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming parser for Ollama embedding responses.
+ * Reads the "embedding" (/api/embeddings) or "embeddings" (/api/embed) arrays byte by byte from the
+ * response source straight into float arrays preallocated at the expected dimension: no body String,
+ * no JSON tree, no boxed numbers and no per-number Strings. Other fields are skipped without materializing.
+ *
+ * Numbers are decoded from their decimal digits directly; results are within one float ulp of
+ * Float.parseFloat, which is far below the precision embeddings carry.
+ */
+public final class EmbeddingJsonParser {
+
+    // Powers of ten that are exact in a double
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+        }
+    }
+
+    // More significant digits than a long holds are beyond float precision anyway
+    private static final int MAX_SIGNIFICANT_DIGITS = 18;
+
+    private static final int NONE = -2;
+
+    private final BufferedSource source;
+    private final int expectedDimension;
+    private int pushedBack = NONE;
+
+    private EmbeddingJsonParser(BufferedSource source, int expectedDimension) {
+        this.source = source;
+        this.expectedDimension = Math.max(1, expectedDimension);
+    }
+
+    /**
+     * Parse an embedding response
+     *
+     * @param expectedDimension size to preallocate each vector with (vectors of another size still parse)
+     * @return the embeddings in response order; empty if the response has none
+     * @throws IOException on malformed JSON or when Ollama reports an error
+     */
+    public static List<float[]> parse(BufferedSource source, int expectedDimension) throws IOException {
+        return new EmbeddingJsonParser(source, expectedDimension).parseDocument();
+    }
+
+    private List<float[]> parseDocument() throws IOException {
+        List<float[]> embeddings = new ArrayList<>(1);
+
+        expect(nextNonWhitespace(), '{');
+        int c = nextNonWhitespace();
+        if (c == '}') {
+            return embeddings;
+        }
+
+        while (true) {
+            expect(c, '"');
+            String name = readString();
+            expect(nextNonWhitespace(), ':');
+
+            switch (name) {
+                case "embedding" -> embeddings.add(readVector(nextNonWhitespace()));
+                case "embeddings" -> readVectors(embeddings);
+                case "error" -> {
+                    int start = nextNonWhitespace();
+                    expect(start, '"');
+                    throw new IOException("Ollama embedding error: " + readString());
+                }
+                default -> skipValue(nextNonWhitespace());
+            }
+
+            c = nextNonWhitespace();
+            if (c == '}') {
+                return embeddings;
+            }
+            expect(c, ',');
+            c = nextNonWhitespace();
+        }
+    }
+
+    private void readVectors(List<float[]> embeddings) throws IOException {
+        expect(nextNonWhitespace(), '[');
+        int c = nextNonWhitespace();
+        if (c == ']') {
+            return;
+        }
+        while (true) {
+            embeddings.add(readVector(c));
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return;
+            }
+            expect(c, ',');
+            c = nextNonWhitespace();
+        }
+    }
+
+    private float[] readVector(int start) throws IOException {
+        expect(start, '[');
+        float[] values = new float[expectedDimension];
+        int size = 0;
+
+        int c = nextNonWhitespace();
+        if (c == ']') {
+            return new float[0];
+        }
+        while (true) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = readNumber(c);
+
+            c = nextNonWhitespace();
+            if (c == ']') {
+                break;
+            }
+            expect(c, ',');
+            c = nextNonWhitespace();
+        }
+
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Decimal number: sign, up to 18 significant digits as a long, and a power-of-ten scale
+     */
+    private float readNumber(int c) throws IOException {
+        boolean negative = c == '-';
+        if (negative) {
+            c = read();
+        }
+        if (!isDigit(c)) {
+            throw syntaxError(c, "number");
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+
+        for (; isDigit(c); c = read()) {
+            if (digits < MAX_SIGNIFICANT_DIGITS) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                scale++;
+            }
+        }
+
+        if (c == '.') {
+            c = read();
+            for (; isDigit(c); c = read()) {
+                if (digits < MAX_SIGNIFICANT_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    scale--;
+                }
+            }
+        }
+
+        if (c == 'e' || c == 'E') {
+            c = read();
+            boolean negativeExponent = c == '-';
+            if (c == '-' || c == '+') {
+                c = read();
+            }
+            int exponent = 0;
+            for (; isDigit(c); c = read()) {
+                if (exponent < 10_000) {
+                    exponent = exponent * 10 + (c - '0');
+                }
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+
+        pushedBack = c;
+
+        double value = mantissa;
+        if (mantissa != 0 && scale != 0) {
+            if (scale > 0) {
+                value = scale < POWERS_OF_TEN.length ? value * POWERS_OF_TEN[scale] : value * Math.pow(10, scale);
+            } else {
+                value = -scale < POWERS_OF_TEN.length ? value / POWERS_OF_TEN[-scale] : value / Math.pow(10, -scale);
+            }
+        }
+        return (float) (negative ? -value : value);
+    }
+
+    /**
+     * String body after the opening quote, decoding escapes; used for names and error messages only
+     */
+    private String readString() throws IOException {
+        Buffer text = new Buffer();
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return text.readUtf8();
+            }
+            if (c != '\\') {
+                text.writeByte(c);
+                continue;
+            }
+            int escaped = read();
+            switch (escaped) {
+                case 'b' -> text.writeByte('\b');
+                case 'f' -> text.writeByte('\f');
+                case 'n' -> text.writeByte('\n');
+                case 'r' -> text.writeByte('\r');
+                case 't' -> text.writeByte('\t');
+                case 'u' -> {
+                    int codePoint = 0;
+                    for (int i = 0; i < 4; i++) {
+                        codePoint = (codePoint << 4) | Character.digit(read(), 16);
+                    }
+                    text.writeUtf8CodePoint(codePoint);
+                }
+                default -> text.writeByte(escaped);
+            }
+        }
+    }
+
+    private void skipValue(int c) throws IOException {
+        switch (c) {
+            case '"' -> skipString();
+            case '{', '[' -> {
+                int depth = 1;
+                while (depth > 0) {
+                    int next = read();
+                    if (next == '"') {
+                        skipString();
+                    } else if (next == '{' || next == '[') {
+                        depth++;
+                    } else if (next == '}' || next == ']') {
+                        depth--;
+                    }
+                }
+            }
+            default -> {
+                // Number or literal: runs until the next delimiter
+                int next = c;
+                while (next != ',' && next != '}' && next != ']' && !isWhitespace(next)) {
+                    next = read();
+                }
+                pushedBack = next;
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        int c;
+        while ((c = read()) != '"') {
+            if (c == '\\') {
+                read();
+            }
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c = read();
+        while (isWhitespace(c)) {
+            c = read();
+        }
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != NONE) {
+            int c = pushedBack;
+            pushedBack = NONE;
+            return c;
+        }
+        return source.readByte() & 0xFF;
+    }
+
+    private void expect(int actual, char expected) throws IOException {
+        if (actual != expected) {
+            throw syntaxError(actual, "'" + expected + "'");
+        }
+    }
+
+    private IOException syntaxError(int actual, String expected) {
+        return new IOException("Malformed embedding response: expected " + expected
+                + " but found '" + (char) actual + "'");
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+}
@@ -0,0 +1,71 @@
+package com.movieapp.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Random;
+
+/**
+ * Gaussian random projection of full embeddings to a lower dimension (Johnson-Lindenstrauss).
+ * The matrix is derived from a fixed seed, so projections are stable across restarts;
+ * changing the seed or dimension requires re-running the reduced embedding backfill.
+ */
+@Component
+@Slf4j
+public class EmbeddingProjection {
+
+    private final int sourceDimension;
+    private final int targetDimension;
+    private final float[][] matrix;
+
+    public EmbeddingProjection(
+            @Value("${ollama.embedding-dimension:768}") int sourceDimension,
+            @Value("${vector-search.reduced.dimension:128}") int targetDimension,
+            @Value("${vector-search.reduced.seed:42}") long seed) {
+
+        this.sourceDimension = sourceDimension;
+        this.targetDimension = targetDimension;
+        this.matrix = new float[targetDimension][sourceDimension];
+
+        Random random = new Random(seed);
+        float scale = (float) (1.0 / Math.sqrt(targetDimension));
+        for (int i = 0; i < targetDimension; i++) {
+            for (int j = 0; j < sourceDimension; j++) {
+                matrix[i][j] = (float) random.nextGaussian() * scale;
+            }
+        }
+
+        log.info("Embedding projection initialized: {} -> {} dims", sourceDimension, targetDimension);
+    }
+
+    public int getTargetDimension() {
+        return targetDimension;
+    }
+
+    /**
+     * Project a full embedding; the input is L2-normalized first so cosine distances are preserved
+     */
+    public float[] project(float[] embedding) {
+        if (embedding == null || embedding.length != sourceDimension) {
+            throw new IllegalArgumentException("Expected embedding of dimension " + sourceDimension);
+        }
+
+        double norm = 0.0;
+        for (float v : embedding) {
+            norm += v * v;
+        }
+        double inverse = norm > 0 ? 1.0 / Math.sqrt(norm) : 0.0;
+
+        float[] reduced = new float[targetDimension];
+        for (int i = 0; i < targetDimension; i++) {
+            float[] row = matrix[i];
+            double sum = 0.0;
+            for (int j = 0; j < sourceDimension; j++) {
+                sum += row[j] * embedding[j];
+            }
+            reduced[i] = (float) (sum * inverse);
+        }
+        return reduced;
+    }
+}
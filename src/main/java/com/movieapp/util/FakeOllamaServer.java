@@ -0,0 +1,391 @@
+package com.movieapp.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for Ollama, for load testing the chat and embedding paths without a GPU (profile "fake-ollama").
+ * Serves /api/embeddings, /api/embed, /api/chat (streaming and non-streaming) and /api/tags on the loopback
+ * interface with the same JSON shapes as Ollama.
+ *
+ * Embeddings are deterministic: the sum of one pseudo-random vector per word (seeded by the word's hash),
+ * normalized, so texts that share words are close. Latency, generation speed, model parallelism and the
+ * error rate are configurable under fake-ollama.*.
+ */
+@Component
+@Profile("fake-ollama")
+@Slf4j
+public class FakeOllamaServer {
+
+    private static final String[] FILLER = (
+            "this one balances character work with a strong sense of place and the pacing rewards "
+                    + "patience while the performances carry the quieter moments and the score lifts the finale")
+            .split(" ");
+
+    private final int port;
+    private final String embeddingModel;
+    private final String chatModel;
+    private final int dimension;
+    private final long embeddingLatencyMs;
+    private final long firstTokenLatencyMs;
+    private final double tokensPerSecond;
+    private final int responseTokens;
+    private final double errorRate;
+    private final Semaphore parallel;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public FakeOllamaServer(
+            @Value("${fake-ollama.port:11435}") int port,
+            @Value("${ollama.model:nomic-embed-text}") String embeddingModel,
+            @Value("${ollama.chat-model:llama3.2}") String chatModel,
+            @Value("${ollama.embedding-dimension:768}") int dimension,
+            @Value("${fake-ollama.embedding-latency-ms:20}") long embeddingLatencyMs,
+            @Value("${fake-ollama.chat.first-token-latency-ms:300}") long firstTokenLatencyMs,
+            @Value("${fake-ollama.chat.tokens-per-second:40}") double tokensPerSecond,
+            @Value("${fake-ollama.chat.response-tokens:120}") int responseTokens,
+            @Value("${fake-ollama.error-rate:0.0}") double errorRate,
+            @Value("${fake-ollama.parallel:4}") int parallel) {
+
+        this.port = port;
+        this.embeddingModel = embeddingModel;
+        this.chatModel = chatModel;
+        this.dimension = dimension;
+        this.embeddingLatencyMs = embeddingLatencyMs;
+        this.firstTokenLatencyMs = firstTokenLatencyMs;
+        this.tokensPerSecond = tokensPerSecond;
+        this.responseTokens = responseTokens;
+        this.errorRate = errorRate;
+        // Like OLLAMA_NUM_PARALLEL: further requests wait for a slot
+        this.parallel = new Semaphore(parallel, true);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+
+        server.createContext("/api/embeddings", exchange -> handle(exchange, "POST", this::embeddings));
+        server.createContext("/api/embed", exchange -> handle(exchange, "POST", this::embedBatch));
+        server.createContext("/api/chat", exchange -> handle(exchange, "POST", this::chat));
+        server.createContext("/api/tags", exchange -> handle(exchange, "GET", this::tags));
+        server.start();
+
+        log.warn("Fake Ollama server listening on port {} (chat: {} ms to first token, {} tokens/s; error rate {})",
+                port, firstTokenLatencyMs, tokensPerSecond, errorRate);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, JsonObject request) throws IOException, InterruptedException;
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try (exchange) {
+            if (!method.equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "method not allowed");
+                return;
+            }
+
+            JsonObject request = new JsonObject();
+            if ("POST".equals(method)) {
+                JsonElement body = JsonParser.parseReader(
+                        new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+                if (!body.isJsonObject()) {
+                    sendError(exchange, 400, "invalid request body");
+                    return;
+                }
+                request = body.getAsJsonObject();
+            }
+
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                sendError(exchange, 500, "injected failure");
+                return;
+            }
+
+            handler.handle(exchange, request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Client went away mid-stream, or a malformed request
+            log.debug("Fake Ollama request {} failed: {}", exchange.getRequestURI(), e.getMessage());
+        }
+    }
+
+    // ---- Embeddings ----
+
+    private void embeddings(HttpExchange exchange, JsonObject request) throws IOException, InterruptedException {
+        String prompt = request.has("prompt") ? request.get("prompt").getAsString() : "";
+        float[] embedding = withSlot(embeddingLatencyMs, () -> embed(prompt));
+
+        try (JsonWriter writer = startJson(exchange, 200)) {
+            writer.beginObject().name("embedding");
+            writeVector(writer, embedding);
+            writer.endObject();
+        }
+    }
+
+    private void embedBatch(HttpExchange exchange, JsonObject request) throws IOException, InterruptedException {
+        List<String> inputs = new ArrayList<>();
+        JsonElement input = request.get("input");
+        if (input != null && input.isJsonArray()) {
+            input.getAsJsonArray().forEach(element -> inputs.add(element.getAsString()));
+        } else if (input != null) {
+            inputs.add(input.getAsString());
+        }
+
+        List<float[]> embeddings = withSlot(embeddingLatencyMs * Math.max(1, inputs.size()),
+                () -> inputs.stream().map(this::embed).toList());
+
+        try (JsonWriter writer = startJson(exchange, 200)) {
+            writer.beginObject()
+                    .name("model").value(modelName(request, embeddingModel))
+                    .name("embeddings").beginArray();
+            for (float[] embedding : embeddings) {
+                writeVector(writer, embedding);
+            }
+            writer.endArray().endObject();
+        }
+    }
+
+    /**
+     * Deterministic embedding: one seeded random direction per word, summed and normalized
+     */
+    private float[] embed(String text) {
+        float[] vector = new float[dimension];
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            SplittableRandom random = new SplittableRandom(word.hashCode() * 0x9E3779B97F4A7C15L);
+            for (int i = 0; i < dimension; i++) {
+                vector[i] += (float) (random.nextDouble() * 2 - 1);
+            }
+        }
+
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            vector[0] = 1f;     // blank text still gets a valid (non-zero) vector
+            return vector;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < dimension; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private void writeVector(JsonWriter writer, float[] vector) throws IOException {
+        writer.beginArray();
+        for (float v : vector) {
+            writer.value((Number) v);
+        }
+        writer.endArray();
+    }
+
+    // ---- Chat ----
+
+    private void chat(HttpExchange exchange, JsonObject request) throws IOException, InterruptedException {
+        boolean stream = !request.has("stream") || request.get("stream").getAsBoolean();   // Ollama streams by default
+        String model = modelName(request, chatModel);
+
+        int promptChars = 0;
+        String lastUserMessage = "";
+        JsonArray messages = request.has("messages") ? request.getAsJsonArray("messages") : new JsonArray();
+        for (JsonElement element : messages) {
+            JsonObject message = element.getAsJsonObject();
+            String content = message.has("content") ? message.get("content").getAsString() : "";
+            promptChars += content.length();
+            if ("user".equals(message.has("role") ? message.get("role").getAsString() : null)) {
+                lastUserMessage = content;
+            }
+        }
+        int promptTokens = Math.max(1, promptChars / 4);
+        List<String> tokens = responseTokens(lastUserMessage);
+
+        parallel.acquire();
+        try {
+            long start = System.nanoTime();
+            Thread.sleep(firstTokenLatencyMs);
+            long prefillNanos = System.nanoTime() - start;
+
+            if (stream) {
+                exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+                exchange.sendResponseHeaders(200, 0);
+                OutputStream out = exchange.getResponseBody();
+                for (String token : tokens) {
+                    writeChunk(out, model, token);
+                    pace();
+                }
+                writeDone(out, model, null, start, prefillNanos, promptTokens, tokens.size());
+            } else {
+                StringBuilder content = new StringBuilder();
+                for (String token : tokens) {
+                    content.append(token);
+                    pace();
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, 0);
+                writeDone(exchange.getResponseBody(), model, content.toString(),
+                        start, prefillNanos, promptTokens, tokens.size());
+            }
+        } finally {
+            parallel.release();
+        }
+    }
+
+    /**
+     * Deterministic reply for a message: an opening line quoting it, then filler words
+     */
+    private List<String> responseTokens(String userMessage) {
+        List<String> tokens = new ArrayList<>();
+        String quoted = userMessage.length() > 60 ? userMessage.substring(0, 60) + "..." : userMessage;
+        tokens.add("[simulated] ");
+        tokens.add("You asked: \"" + quoted + "\". ");
+        SplittableRandom random = new SplittableRandom(userMessage.hashCode());
+        while (tokens.size() < responseTokens) {
+            tokens.add(FILLER[random.nextInt(FILLER.length)] + " ");
+        }
+        return tokens;
+    }
+
+    private void pace() throws InterruptedException {
+        if (tokensPerSecond > 0) {
+            long nanos = (long) (1_000_000_000L / tokensPerSecond);
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    }
+
+    private void writeChunk(OutputStream out, String model, String token) throws IOException {
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.beginObject()
+                .name("model").value(model)
+                .name("created_at").value(Instant.now().toString())
+                .name("message").beginObject()
+                .name("role").value("assistant")
+                .name("content").value(token)
+                .endObject()
+                .name("done").value(false)
+                .endObject();
+        writer.flush();
+        out.write('\n');
+        out.flush();
+    }
+
+    private void writeDone(OutputStream out, String model, String content, long start, long prefillNanos,
+                           int promptTokens, int evalTokens) throws IOException {
+        long total = System.nanoTime() - start;
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.beginObject()
+                .name("model").value(model)
+                .name("created_at").value(Instant.now().toString())
+                .name("message").beginObject()
+                .name("role").value("assistant")
+                .name("content").value(content != null ? content : "")
+                .endObject()
+                .name("done").value(true)
+                .name("done_reason").value("stop")
+                .name("total_duration").value(total)
+                .name("load_duration").value(0)
+                .name("prompt_eval_count").value(promptTokens)
+                .name("prompt_eval_duration").value(prefillNanos)
+                .name("eval_count").value(evalTokens)
+                .name("eval_duration").value(total - prefillNanos)
+                .endObject();
+        writer.flush();
+        out.write('\n');
+        out.flush();
+    }
+
+    // ---- Tags ----
+
+    private void tags(HttpExchange exchange, JsonObject request) throws IOException {
+        try (JsonWriter writer = startJson(exchange, 200)) {
+            writer.beginObject().name("models").beginArray();
+            for (String model : List.of(chatModel, embeddingModel)) {
+                String name = model.contains(":") ? model : model + ":latest";
+                writer.beginObject()
+                        .name("name").value(name)
+                        .name("model").value(name)
+                        .name("size").value(0)
+                        .endObject();
+            }
+            writer.endArray().endObject();
+        }
+    }
+
+    // ---- Helpers ----
+
+    @FunctionalInterface
+    private interface Work<T> {
+        T run();
+    }
+
+    private <T> T withSlot(long latencyMs, Work<T> work) throws InterruptedException {
+        parallel.acquire();
+        try {
+            Thread.sleep(latencyMs);
+            return work.run();
+        } finally {
+            parallel.release();
+        }
+    }
+
+    private String modelName(JsonObject request, String fallback) {
+        return request.has("model") ? request.get("model").getAsString() : fallback;
+    }
+
+    private JsonWriter startJson(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, 0);
+        return new JsonWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        try (JsonWriter writer = startJson(exchange, status)) {
+            writer.beginObject().name("error").value(message).endObject();
+        }
+    }
+}
@@ -4,7 +4,9 @@ import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.gson.GsonFactory;
+import com.movieapp.exception.DownstreamBusyException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -15,23 +17,29 @@ import java.util.Collections;
 public class GoogleTokenVerifier {
 
     private final GoogleIdTokenVerifier verifier;
+    private final Bulkhead bulkhead;
 
-    public GoogleTokenVerifier(@Value("${google.client-id}") String clientId) {
+    public GoogleTokenVerifier(@Value("${google.client-id}") String clientId,
+                               @Qualifier("googleBulkhead") Bulkhead bulkhead) {
         this.verifier = new GoogleIdTokenVerifier.Builder(
                 new NetHttpTransport(),
                 new GsonFactory()
         )
                 .setAudience(Collections.singletonList(clientId))
                 .build();
+        this.bulkhead = bulkhead;
     }
 
     public GoogleIdToken.Payload verify(String idToken) {
         try {
-            GoogleIdToken token = verifier.verify(idToken);
+            // Certificate refresh is a blocking call to Google
+            GoogleIdToken token = bulkhead.execute(() -> verifier.verify(idToken));
             if (token != null) {
                 return token.getPayload();
             }
             return null;
+        } catch (DownstreamBusyException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to verify Google token: {}", e.getMessage());
             return null;
@@ -0,0 +1,184 @@
+package com.movieapp.util;
+
+import com.movieapp.exception.RateLimitExceededException;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-user LLM budget measured in tokens, kept in the same kind of per-user bucket store as the request counts
+ * of RateLimiter.
+ * A chat reserves its worst case (the prompt token budget plus the expected completion) before any work starts;
+ * once the turn is done the reservation is settled against what it actually cost: unused tokens go back
+ * to the bucket, a longer answer is charged on top (the bucket may go negative and the user waits it off).
+ */
+@Component
+@Slf4j
+public class LlmBudgetLimiter {
+
+    private final BucketStore buckets = new BucketStore(key -> createLimit());
+
+    private final boolean enabled;
+    private final long capacity;
+    private final long refillTokensPerMinute;
+    private final long chatEstimate;
+
+    private final Counter rejections;
+    private final DistributionSummary chargedTokens;
+
+    public LlmBudgetLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${rate-limit.llm.enabled:true}") boolean enabled,
+            @Value("${rate-limit.llm.capacity:40000}") long capacity,
+            @Value("${rate-limit.llm.refill-tokens-per-minute:20000}") long refillTokensPerMinute,
+            @Value("${chat.prompt.token-budget:3072}") int promptTokenBudget,
+            @Value("${rate-limit.llm.estimated-completion-tokens:400}") int estimatedCompletionTokens) {
+
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.refillTokensPerMinute = refillTokensPerMinute;
+        // A single chat must always fit into a full bucket
+        this.chatEstimate = Math.min(capacity, (long) promptTokenBudget + estimatedCompletionTokens);
+
+        this.rejections = Counter.builder("chat.llm.budget.rejections")
+                .description("Chat requests rejected because the user's LLM token budget was spent")
+                .register(meterRegistry);
+        this.chargedTokens = DistributionSummary.builder("chat.llm.budget.charged")
+                .description("Tokens charged to the user's LLM budget per chat")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+
+        log.info("LLM budget limiter initialized - enabled: {}, capacity: {} tokens, refill: {} tokens/min, per chat estimate: {}",
+                enabled, capacity, refillTokensPerMinute, chatEstimate);
+    }
+
+    /**
+     * Reserve the estimated cost of one chat turn
+     *
+     * @throws RateLimitExceededException with the seconds until the estimate fits again
+     */
+    public Reservation reserve(String key) {
+        if (!enabled) {
+            return new Reservation(null, key, 0);
+        }
+
+        Bucket bucket = buckets.get(key);
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(chatEstimate);
+
+        if (!probe.isConsumed()) {
+            rejections.increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill()) + 1);
+            log.warn("LLM budget exhausted for key: {} (available tokens: {}, needed: {})",
+                    key, probe.getRemainingTokens(), chatEstimate);
+            throw new RateLimitExceededException(
+                    "You have used up your movie mentor budget for now. Please try again in "
+                            + retryAfterSeconds + " seconds.", retryAfterSeconds);
+        }
+
+        log.debug("Reserved {} LLM tokens for key: {} (remaining tokens: {})",
+                chatEstimate, key, probe.getRemainingTokens());
+        return new Reservation(bucket, key, chatEstimate);
+    }
+
+    /**
+     * Limit that refills continuously, so budget comes back token by token rather than in bursts
+     */
+    private Bandwidth createLimit() {
+        return Bandwidth.classic(
+                capacity,
+                Refill.greedy(refillTokensPerMinute, Duration.ofMinutes(1))
+        );
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get available tokens for a key (for monitoring); a user without a bucket has the full capacity
+     */
+    public long getAvailableTokens(String key) {
+        Bucket bucket = buckets.find(key);
+        return bucket != null ? bucket.getAvailableTokens() : capacity;
+    }
+
+    /**
+     * Reset budget for specific key
+     */
+    public void resetLimit(String key) {
+        buckets.remove(key);
+        log.info("LLM budget reset for key: {}", key);
+    }
+
+    /**
+     * Tokens held for one chat turn. Usage is added with charge() as the turn runs;
+     * settle() (idempotent) reconciles it with the reservation and must be called on every path.
+     */
+    public final class Reservation {
+
+        private final Bucket bucket;
+        private final String key;
+        private final long reserved;
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private long used;
+
+        private Reservation(Bucket bucket, String key, long reserved) {
+            this.bucket = bucket;
+            this.key = key;
+            this.reserved = reserved;
+        }
+
+        /**
+         * Tokens currently left in the budget (negative after an overrun)
+         */
+        public long getRemaining() {
+            return bucket != null ? bucket.getAvailableTokens() : capacity;
+        }
+
+        public long getReserved() {
+            return reserved;
+        }
+
+        /**
+         * Record tokens the turn actually cost (prompt sent to the model, generated answer)
+         */
+        public synchronized void charge(long tokens) {
+            used += Math.max(0, tokens);
+        }
+
+        /**
+         * Return unused tokens to the budget or charge the overrun; nothing happens after the first call
+         */
+        public void settle() {
+            if (bucket == null || !settled.compareAndSet(false, true)) {
+                return;
+            }
+
+            long actual;
+            synchronized (this) {
+                actual = used;
+            }
+
+            if (actual < reserved) {
+                bucket.addTokens(reserved - actual);
+            } else if (actual > reserved) {
+                bucket.consumeIgnoringRateLimits(actual - reserved);
+            }
+            chargedTokens.record(actual);
+
+            log.debug("Settled LLM budget for key: {} (reserved {}, used {}, remaining tokens: {})",
+                    key, reserved, actual, bucket.getAvailableTokens());
+        }
+    }
+}
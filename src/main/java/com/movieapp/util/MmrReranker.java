@@ -0,0 +1,174 @@
+package com.movieapp.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Maximal-marginal-relevance re-ranking over movie embeddings.
+ * score(i) = lambda * relevance(i) - (1 - lambda) * max similarity to already selected items
+ */
+@Component
+@Slf4j
+public class MmrReranker {
+
+    private final boolean enabled;
+    private final double lambda;
+    private final int candidateMultiplier;
+    private final int maxCandidates;
+    private final long timeBudgetNanos;
+
+    public MmrReranker(
+            @Value("${recommendation.diversity.enabled:true}") boolean enabled,
+            @Value("${recommendation.diversity.lambda:0.7}") double lambda,
+            @Value("${recommendation.diversity.candidate-multiplier:3}") int candidateMultiplier,
+            @Value("${recommendation.diversity.max-candidates:500}") int maxCandidates,
+            @Value("${recommendation.diversity.time-budget-ms:20}") long timeBudgetMs) {
+
+        if (lambda < 0.0 || lambda > 1.0) {
+            throw new IllegalArgumentException("recommendation.diversity.lambda must be between 0 and 1");
+        }
+
+        this.enabled = enabled;
+        this.lambda = lambda;
+        this.candidateMultiplier = Math.max(1, candidateMultiplier);
+        this.maxCandidates = maxCandidates;
+        this.timeBudgetNanos = timeBudgetMs * 1_000_000L;
+
+        log.info("MMR re-ranker initialized: enabled={}, lambda={}, maxCandidates={}",
+                enabled, lambda, maxCandidates);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Number of candidates to retrieve so the re-ranker has room to diversify
+     */
+    public int candidatePoolSize(int limit) {
+        if (!enabled) {
+            return limit;
+        }
+        return Math.max(limit, Math.min(limit * candidateMultiplier, maxCandidates));
+    }
+
+    /**
+     * Select k items from candidates (ordered by relevance) trading relevance against diversity.
+     * Runs in O(k * n) similarity computations by caching each candidate's max similarity
+     * to the selected set. If the time budget runs out, remaining slots are filled by relevance.
+     */
+    public <T> List<T> rerank(List<T> candidates,
+                              ToDoubleFunction<T> relevance,
+                              Function<T, float[]> embedding,
+                              int k) {
+        int n = Math.min(candidates.size(), maxCandidates);
+        if (!enabled || k <= 0 || n <= 1) {
+            return candidates.stream().limit(Math.max(k, 0)).toList();
+        }
+
+        long deadline = System.nanoTime() + timeBudgetNanos;
+
+        // Normalize embeddings so cosine similarity is a dot product
+        float[][] vectors = new float[n][];
+        double[] relevanceScores = new double[n];
+        double minRelevance = Double.MAX_VALUE;
+        double maxRelevance = -Double.MAX_VALUE;
+
+        for (int i = 0; i < n; i++) {
+            T candidate = candidates.get(i);
+            vectors[i] = normalize(embedding.apply(candidate));
+            relevanceScores[i] = relevance.applyAsDouble(candidate);
+            minRelevance = Math.min(minRelevance, relevanceScores[i]);
+            maxRelevance = Math.max(maxRelevance, relevanceScores[i]);
+        }
+
+        // Scale relevance to [0, 1] so lambda means the same thing for every score source
+        double range = maxRelevance - minRelevance;
+        for (int i = 0; i < n; i++) {
+            relevanceScores[i] = range > 0 ? (relevanceScores[i] - minRelevance) / range : 1.0;
+        }
+
+        double[] maxSimilarity = new double[n];
+        boolean[] selected = new boolean[n];
+        List<T> result = new ArrayList<>(Math.min(k, n));
+
+        while (result.size() < Math.min(k, n)) {
+            int best = -1;
+            double bestScore = -Double.MAX_VALUE;
+
+            for (int i = 0; i < n; i++) {
+                if (selected[i]) continue;
+                double score = lambda * relevanceScores[i] - (1 - lambda) * maxSimilarity[i];
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = i;
+                }
+            }
+
+            selected[best] = true;
+            result.add(candidates.get(best));
+
+            if (System.nanoTime() > deadline) {
+                log.debug("MMR time budget exceeded after {} of {} picks, filling by relevance", result.size(), k);
+                for (int i = 0; i < n && result.size() < k; i++) {
+                    if (!selected[i]) {
+                        selected[i] = true;
+                        result.add(candidates.get(i));
+                    }
+                }
+                break;
+            }
+
+            // Incremental update: only similarities to the newly selected item are computed
+            float[] chosen = vectors[best];
+            if (chosen == null) continue;
+            for (int i = 0; i < n; i++) {
+                if (selected[i] || vectors[i] == null) continue;
+                double similarity = dot(chosen, vectors[i]);
+                if (similarity > maxSimilarity[i]) {
+                    maxSimilarity[i] = similarity;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private float[] normalize(float[] vector) {
+        if (vector == null) {
+            return null;
+        }
+
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0.0) {
+            return null;
+        }
+
+        float inverse = (float) (1.0 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * inverse;
+        }
+        return normalized;
+    }
+
+    private double dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
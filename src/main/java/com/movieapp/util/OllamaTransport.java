@@ -0,0 +1,244 @@
+package com.movieapp.util;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.*;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared HTTP transport for every Ollama client.
+ * One connection pool sized to the Ollama concurrency limiter, so each admitted call finds a kept-alive
+ * connection. Calls run synchronously (execute()), so the limiter alone bounds concurrency and OkHttp's
+ * dispatcher, which only governs enqueue(), is left at its defaults.
+ * Request bodies are written with a JsonWriter straight into the socket sink and responses are handed
+ * to the caller as the raw source for streaming JSON decoding.
+ *
+ * Ollama serves plain HTTP/1.1 (no TLS, so no ALPN and no HTTP/2), hence keep-alive rather than multiplexing.
+ */
+@Component
+@Slf4j
+public class OllamaTransport {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final OkHttpClient client;
+    private final String baseUrl;
+    private final MeterRegistry meterRegistry;
+
+    // Per read-timeout variants of the client; they share the pool and listener
+    private final Map<Duration, OkHttpClient> clientsByReadTimeout = new ConcurrentHashMap<>();
+
+    private final Counter newConnections;
+    private final Counter reusedConnections;
+    private final Timer connectionAcquire;
+
+    public OllamaTransport(
+            MeterRegistry meterRegistry,
+            @Value("${ollama.base-url:http://localhost:11434}") String baseUrl,
+            @Value("${downstream.ollama.max-limit:8}") int maxConcurrent,
+            @Value("${ollama.http.max-idle-connections:0}") int maxIdleConnections,
+            @Value("${ollama.http.keep-alive-seconds:300}") long keepAliveSeconds,
+            @Value("${ollama.http.connect-timeout-seconds:30}") long connectTimeoutSeconds,
+            @Value("${ollama.http.read-timeout-seconds:120}") long readTimeoutSeconds,
+            @Value("${ollama.http.write-timeout-seconds:60}") long writeTimeoutSeconds) {
+
+        this.baseUrl = baseUrl;
+        this.meterRegistry = meterRegistry;
+
+        // Every call the limiter can admit may park its connection; extra headroom covers tag/health probes
+        int idle = maxIdleConnections > 0 ? maxIdleConnections : maxConcurrent + 2;
+        ConnectionPool pool = new ConnectionPool(idle, keepAliveSeconds, TimeUnit.SECONDS);
+
+        this.newConnections = Counter.builder("ollama.http.connections")
+                .description("Ollama calls by connection source")
+                .tag("type", "new")
+                .register(meterRegistry);
+        this.reusedConnections = Counter.builder("ollama.http.connections")
+                .description("Ollama calls by connection source")
+                .tag("type", "reused")
+                .register(meterRegistry);
+        this.connectionAcquire = Timer.builder("ollama.http.connection.acquire")
+                .description("Time from call start until a connection is ready (pool lookup, DNS and connect)")
+                .register(meterRegistry);
+
+        this.client = new OkHttpClient.Builder()
+                .connectionPool(pool)
+                .protocols(List.of(Protocol.HTTP_1_1))
+                .retryOnConnectionFailure(true)
+                .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(writeTimeoutSeconds, TimeUnit.SECONDS)
+                .eventListenerFactory(call -> new MetricsListener())
+                .build();
+
+        Gauge.builder("ollama.http.pool.connections", pool, ConnectionPool::connectionCount)
+                .tag("state", "total")
+                .register(meterRegistry);
+        Gauge.builder("ollama.http.pool.connections", pool, ConnectionPool::idleConnectionCount)
+                .tag("state", "idle")
+                .register(meterRegistry);
+
+        log.info("Ollama transport initialized: url={}, maxIdle={}, keepAlive={}s",
+                baseUrl, idle, keepAliveSeconds);
+    }
+
+    /**
+     * Writes a request body as JSON, field by field
+     */
+    @FunctionalInterface
+    public interface JsonBody {
+        void writeTo(JsonWriter writer) throws IOException;
+    }
+
+    /**
+     * Decodes a successful response straight from the connection
+     */
+    @FunctionalInterface
+    public interface ResponseReader<T> {
+        T read(BufferedSource source) throws IOException;
+    }
+
+    /**
+     * POST a JSON body to an Ollama endpoint and decode the response
+     *
+     * @param readTimeout  maximum silence between bytes, or null for the default
+     * @param cancellation aborts the in-flight call when cancelled, may be null
+     * @throws IOException on transport errors and non-2xx responses
+     */
+    public <T> T post(String path, JsonBody body, Duration readTimeout,
+                      CancellationSignal cancellation, ResponseReader<T> reader) throws IOException {
+        Request request = new Request.Builder()
+                .url(baseUrl + path)
+                .post(new StreamingJsonRequestBody(body))
+                .build();
+        return execute(request, readTimeout, cancellation, reader);
+    }
+
+    /**
+     * GET an Ollama endpoint and decode the response
+     */
+    public <T> T get(String path, ResponseReader<T> reader) throws IOException {
+        Request request = new Request.Builder()
+                .url(baseUrl + path)
+                .get()
+                .build();
+        return execute(request, null, null, reader);
+    }
+
+    private <T> T execute(Request request, Duration readTimeout, CancellationSignal cancellation,
+                          ResponseReader<T> reader) throws IOException {
+        Call call = clientFor(readTimeout).newCall(request);
+        if (cancellation != null) {
+            cancellation.onCancel(call::cancel);
+        }
+
+        try (Response response = call.execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Ollama " + request.url().encodedPath() + " error: " + response.code());
+            }
+            return reader.read(response.body().source());
+        }
+    }
+
+    private OkHttpClient clientFor(Duration readTimeout) {
+        if (readTimeout == null) {
+            return client;
+        }
+        return clientsByReadTimeout.computeIfAbsent(readTimeout, timeout -> client.newBuilder()
+                .readTimeout(timeout)
+                .build());
+    }
+
+    /**
+     * Streaming JSON reader over a response source (decodes UTF-8 as bytes arrive, no intermediate String)
+     */
+    public static JsonReader jsonReader(BufferedSource source) {
+        return new JsonReader(new InputStreamReader(source.inputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Request body serialized on demand into the socket sink; chunked, since the length is not known up front
+     */
+    private static final class StreamingJsonRequestBody extends RequestBody {
+        private final JsonBody body;
+
+        private StreamingJsonRequestBody(JsonBody body) {
+            this.body = body;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return JSON;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            // Not closed: closing the writer would close the sink, which OkHttp owns
+            JsonWriter writer = new JsonWriter(new OutputStreamWriter(sink.outputStream(), StandardCharsets.UTF_8));
+            body.writeTo(writer);
+            writer.flush();
+        }
+    }
+
+    /**
+     * Per-call listener: connection reuse and setup overhead, and total call time per endpoint
+     */
+    private final class MetricsListener extends EventListener {
+        private long callStart;
+        private boolean connected;
+
+        @Override
+        public void callStart(Call call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            connected = true;
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            connectionAcquire.record(System.nanoTime() - callStart, TimeUnit.NANOSECONDS);
+            (connected ? newConnections : reusedConnections).increment();
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            recordCall(call, "success");
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            recordCall(call, call.isCanceled() ? "cancelled" : "error");
+        }
+
+        private void recordCall(Call call, String outcome) {
+            Timer.builder("ollama.http.calls")
+                    .tag("endpoint", call.request().url().encodedPath())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - callStart, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -9,14 +9,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @Slf4j
 public class RateLimiter {
 
-    private final Map<String, Bucket> cache = new ConcurrentHashMap<>();
+    private final BucketStore buckets = new BucketStore(this::createLimit);
     // Authenticated user limits
     private final int authenticatedCapacity;
     private final int authenticatedRefillRate;
@@ -41,7 +39,7 @@ public class RateLimiter {
     }
 
     public void checkRateLimit(String key) {
-        Bucket bucket = cache.computeIfAbsent(key, k -> createBucket(k));
+        Bucket bucket = buckets.get(key);
 
         long availableTokens = bucket.getAvailableTokens();
 
@@ -57,53 +55,45 @@ public class RateLimiter {
     }
 
     /**
-     * Create bucket based on key type (anonymous vs authenticated)
+     * Limit based on key type (anonymous vs authenticated)
      */
-    private Bucket createBucket(String key) {
+    private Bandwidth createLimit(String key) {
         if (key.equals("anonymous")) {
             // More restrictive limits for anonymous users
-            return createAnonymousBucket();
+            return createAnonymousLimit();
         } else {
             // Standard limits for authenticated users
-            return createAuthenticatedBucket();
+            return createAuthenticatedLimit();
         }
     }
 
     /**
-     * Create bucket for authenticated users
+     * Limit for authenticated users
      * Default: 100 requests with 10 refill per second
      */
-    private Bucket createAuthenticatedBucket() {
-        Bandwidth limit = Bandwidth.classic(
+    private Bandwidth createAuthenticatedLimit() {
+        return Bandwidth.classic(
                 authenticatedCapacity,
                 Refill.intervally(authenticatedRefillRate, Duration.ofSeconds(1))
         );
-
-        return Bucket.builder()
-                .addLimit(limit)
-                .build();
     }
 
     /**
-     * Create bucket for anonymous users
+     * Limit for anonymous users
      * Default: 20 requests with 2 refill per second
      */
-    private Bucket createAnonymousBucket() {
-        Bandwidth limit = Bandwidth.classic(
+    private Bandwidth createAnonymousLimit() {
+        return Bandwidth.classic(
                 anonymousCapacity,
                 Refill.intervally(anonymousRefillRate, Duration.ofSeconds(1))
         );
-
-        return Bucket.builder()
-                .addLimit(limit)
-                .build();
     }
 
     /**
      * Reset limit for specific key
      */
     public void resetLimit(String key) {
-        cache.remove(key);
+        buckets.remove(key);
         log.info("Rate limit reset for key: {}", key);
     }
 
@@ -111,7 +101,7 @@ public class RateLimiter {
      * Get available tokens for a key (for monitoring)
      */
     public long getAvailableTokens(String key) {
-        Bucket bucket = cache.get(key);
+        Bucket bucket = buckets.find(key);
         return bucket != null ? bucket.getAvailableTokens() : 0;
     }
 
@@ -119,7 +109,7 @@ public class RateLimiter {
      * Clear all rate limit buckets (useful for testing)
      */
     public void clearAll() {
-        cache.clear();
+        buckets.clear();
         log.info("All rate limit buckets cleared");
     }
 }
\ No newline at end of file
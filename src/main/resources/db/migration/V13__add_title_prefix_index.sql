@@ -0,0 +1,6 @@
+-- Btree index for typeahead prefix lookups (LOWER(title) LIKE 'abc%')
+-- pg_trgm needs 3+ characters to be selective, so short prefixes use this instead
+CREATE INDEX IF NOT EXISTS idx_movies_title_lower_prefix
+    ON movies (LOWER(title) text_pattern_ops);
+
+ANALYZE movies;
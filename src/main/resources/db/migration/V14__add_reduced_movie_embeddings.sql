@@ -0,0 +1,12 @@
+-- Low-dimension (random projection) copy of movies.embedding for coarse candidate generation
+-- Dimension must match vector-search.reduced.dimension
+ALTER TABLE movies
+    ADD COLUMN IF NOT EXISTS embedding_reduced vector(128),
+    ADD COLUMN IF NOT EXISTS embedding_reduced_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_movies_embedding_reduced_hnsw
+    ON movies USING hnsw (embedding_reduced vector_cosine_ops);
+
+-- Index for the background job picking up stale or missing reduced embeddings
+CREATE INDEX IF NOT EXISTS idx_movies_null_embedding_reduced
+    ON movies(id) WHERE embedding IS NOT NULL AND embedding_reduced IS NULL;
@@ -0,0 +1,10 @@
+-- Precomputed RAG context snippet per movie (title, plot, genres, credits, keywords)
+-- context_card_version matches MovieContextCardService.CARD_VERSION; older cards are regenerated
+ALTER TABLE movies
+    ADD COLUMN IF NOT EXISTS context_card TEXT,
+    ADD COLUMN IF NOT EXISTS context_card_version INTEGER,
+    ADD COLUMN IF NOT EXISTS context_card_updated_at TIMESTAMP;
+
+-- Index for the background job picking up missing cards
+CREATE INDEX IF NOT EXISTS idx_movies_null_context_card
+    ON movies(id) WHERE context_card IS NULL;
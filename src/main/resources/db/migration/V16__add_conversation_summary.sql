@@ -0,0 +1,6 @@
+-- Rolling summary of older chat turns (written asynchronously by ConversationSummaryService)
+-- summary_through_message_id is the newest message folded into the summary; later messages are sent verbatim
+ALTER TABLE chat_conversations
+    ADD COLUMN IF NOT EXISTS summary TEXT,
+    ADD COLUMN IF NOT EXISTS summary_through_message_id BIGINT,
+    ADD COLUMN IF NOT EXISTS summary_updated_at TIMESTAMP;
@@ -0,0 +1,3 @@
+-- Per-user opt-out from the shared semantic chat response cache
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS chat_cache_opt_out BOOLEAN DEFAULT FALSE;
@@ -0,0 +1,83 @@
+-- Range-partition chat_messages by month of created_at so expired history is archived by dropping partitions
+-- (see ChatArchiveService). The primary key must include the partition key; ids still come from the
+-- existing sequence, so they stay unique.
+
+-- A foreign key cannot reference the partitioned table by id alone: refs are cascaded by trigger instead
+ALTER TABLE message_movie_refs DROP CONSTRAINT IF EXISTS message_movie_refs_message_id_fkey;
+
+ALTER TABLE chat_messages RENAME TO chat_messages_unpartitioned;
+ALTER TABLE chat_messages_unpartitioned RENAME CONSTRAINT chat_messages_pkey TO chat_messages_unpartitioned_pkey;
+ALTER SEQUENCE chat_messages_id_seq OWNED BY NONE;
+
+DROP INDEX IF EXISTS idx_chat_messages_conversation;
+DROP INDEX IF EXISTS idx_chat_messages_created;
+DROP INDEX IF EXISTS idx_chat_messages_role;
+DROP INDEX IF EXISTS idx_chat_messages_conversation_created;
+
+CREATE TABLE chat_messages (
+       id BIGINT NOT NULL DEFAULT nextval('chat_messages_id_seq'),
+       conversation_id BIGINT NOT NULL,
+       role VARCHAR(20) NOT NULL CHECK (role IN ('USER', 'ASSISTANT', 'SYSTEM')),
+       content TEXT NOT NULL,
+       is_off_topic BOOLEAN DEFAULT FALSE,
+       created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+       PRIMARY KEY (id, created_at),
+       FOREIGN KEY (conversation_id) REFERENCES chat_conversations(id) ON DELETE CASCADE
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE chat_messages_id_seq OWNED BY chat_messages.id;
+
+CREATE INDEX idx_chat_messages_conversation_created ON chat_messages(conversation_id, created_at ASC);
+CREATE INDEX idx_chat_messages_id ON chat_messages(id);
+
+-- Safety net for rows outside the premade months; normally empty
+CREATE TABLE chat_messages_default PARTITION OF chat_messages DEFAULT;
+
+-- Monthly partition chat_messages_pYYYYMM holding [first of month, first of next month)
+CREATE OR REPLACE FUNCTION chat_messages_ensure_partition(p_month DATE) RETURNS TEXT AS $$
+DECLARE
+    v_start DATE := date_trunc('month', p_month)::date;
+    v_name TEXT := 'chat_messages_p' || to_char(v_start, 'YYYYMM');
+BEGIN
+    IF to_regclass(v_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF chat_messages FOR VALUES FROM (%L) TO (%L)',
+                       v_name, v_start, (v_start + INTERVAL '1 month')::date);
+    END IF;
+    RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for the existing history and the next few months
+DO $$
+DECLARE
+    v_month DATE := date_trunc('month',
+            COALESCE((SELECT MIN(created_at) FROM chat_messages_unpartitioned), CURRENT_TIMESTAMP))::date;
+BEGIN
+    WHILE v_month <= (date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months')::date LOOP
+        PERFORM chat_messages_ensure_partition(v_month);
+        v_month := (v_month + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO chat_messages (id, conversation_id, role, content, is_off_topic, created_at)
+SELECT id, conversation_id, role, content, is_off_topic, created_at
+FROM chat_messages_unpartitioned;
+
+DROP TABLE chat_messages_unpartitioned;
+
+-- Replaces ON DELETE CASCADE from message_movie_refs; one statement-level pass per DELETE
+-- (dropping a partition fires no trigger: the archive job removes those refs itself)
+CREATE OR REPLACE FUNCTION chat_messages_delete_refs() RETURNS TRIGGER AS $$
+BEGIN
+    DELETE FROM message_movie_refs r
+    USING deleted_messages d
+    WHERE r.message_id = d.id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_chat_messages_delete_refs
+    AFTER DELETE ON chat_messages
+    REFERENCING OLD TABLE AS deleted_messages
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION chat_messages_delete_refs();
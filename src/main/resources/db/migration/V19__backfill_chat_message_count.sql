@@ -0,0 +1,3 @@
+-- message_count was never maintained; from now on it is updated atomically on every insert, clear and archive
+UPDATE chat_conversations c
+SET message_count = (SELECT COUNT(*) FROM chat_messages m WHERE m.conversation_id = c.id);
@@ -0,0 +1,27 @@
+-- Creating a monthly partition fails while chat_messages_default holds rows for that month.
+-- Such rows are now moved into a standalone table, which is then attached as the month's partition.
+-- Rows move between partitions, so message_count and message_movie_refs are unaffected
+-- (the refs trigger only fires for deletes through chat_messages itself).
+CREATE OR REPLACE FUNCTION chat_messages_ensure_partition(p_month DATE) RETURNS TEXT AS $$
+DECLARE
+    v_start DATE := date_trunc('month', p_month)::date;
+    v_end DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::date;
+    v_name TEXT := 'chat_messages_p' || to_char(v_start, 'YYYYMM');
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN v_name;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM chat_messages_default WHERE created_at >= v_start AND created_at < v_end) THEN
+        EXECUTE format('CREATE TABLE %I (LIKE chat_messages INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name);
+        EXECUTE format('WITH moved AS (DELETE FROM chat_messages_default WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                       'INSERT INTO %I SELECT * FROM moved', v_start, v_end, v_name);
+        EXECUTE format('ALTER TABLE chat_messages ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       v_name, v_start, v_end);
+    ELSE
+        EXECUTE format('CREATE TABLE %I PARTITION OF chat_messages FOR VALUES FROM (%L) TO (%L)',
+                       v_name, v_start, v_end);
+    END IF;
+    RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
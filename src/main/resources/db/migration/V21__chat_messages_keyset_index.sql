@@ -0,0 +1,5 @@
+-- History pages use the keyset (created_at, id): include id so the row comparison and the
+-- ORDER BY created_at DESC, id DESC are served by one backward index scan per partition
+CREATE INDEX idx_chat_messages_conversation_created_id ON chat_messages(conversation_id, created_at, id);
+
+DROP INDEX IF EXISTS idx_chat_messages_conversation_created;
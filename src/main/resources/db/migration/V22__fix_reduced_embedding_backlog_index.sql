@@ -0,0 +1,9 @@
+-- The V14 partial index left out reduced embeddings older than the full one, so its predicate was not
+-- implied by findMoviesNeedingReducedEmbedding and the backfill query could not use it.
+-- Same predicate as the query: the index holds exactly the backlog and scans in id order.
+CREATE INDEX IF NOT EXISTS idx_movies_embedding_reduced_backlog
+    ON movies(id)
+    WHERE embedding IS NOT NULL
+      AND (embedding_reduced IS NULL OR embedding_reduced_at < embedding_generated_at);
+
+DROP INDEX IF EXISTS idx_movies_null_embedding_reduced;
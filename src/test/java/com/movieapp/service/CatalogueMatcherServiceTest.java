@@ -0,0 +1,93 @@
+package com.movieapp.service;
+
+import com.movieapp.repository.GenreRepository;
+import com.movieapp.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogueMatcherServiceTest {
+
+    private static final long GODFATHER = 1L;
+    private static final long GODFATHER_PART_II = 2L;
+    private static final long UP = 3L;
+    private static final long HEAT = 4L;
+    private static final long HEAT_REMAKE = 5L;
+
+    private CatalogueMatcherService service;
+
+    @BeforeEach
+    void setUp() {
+        MovieRepository movieRepository = mock(MovieRepository.class);
+        GenreRepository genreRepository = mock(GenreRepository.class);
+
+        // Most-rated first, as findAllTitles returns them
+        when(movieRepository.findAllTitles()).thenReturn(List.of(
+                new Object[]{GODFATHER, "The Godfather"},
+                new Object[]{GODFATHER_PART_II, "The Godfather Part II"},
+                new Object[]{UP, "Up"},
+                new Object[]{HEAT, "Heat"},
+                new Object[]{HEAT_REMAKE, "Heat"}
+        ));
+        when(movieRepository.getCatalogueFingerprint()).thenReturn("v1");
+        when(genreRepository.findAll()).thenReturn(List.of());
+
+        service = new CatalogueMatcherService(movieRepository, genreRepository);
+        service.refreshIfChanged();
+    }
+
+    @Test
+    void longerOverlappingTitleWins() {
+        assertEquals(List.of(GODFATHER_PART_II),
+                service.findMovieIds("The Godfather Part II is the best sequel ever made.", Set.of()));
+        assertEquals(List.of(GODFATHER, GODFATHER_PART_II),
+                service.findMovieIds("Start with The Godfather, then The Godfather Part II.", Set.of()));
+    }
+
+    @Test
+    void genreWordInsideAnotherWordIsNotAMention() {
+        assertTrue(service.findGenres("It won an award for its score").isEmpty());
+        assertEquals(Set.of("war"), service.findGenres("Looking for a war movie"));
+    }
+
+    @Test
+    void sharedTitlePrefersTheRetrievedMovie() {
+        assertEquals(List.of(HEAT_REMAKE), service.findMovieIds("You might enjoy Heat.", Set.of(HEAT_REMAKE)));
+    }
+
+    @Test
+    void sharedTitleFallsBackToMostRated() {
+        assertEquals(List.of(HEAT), service.findMovieIds("You might enjoy **Heat**.", Set.of()));
+    }
+
+    @Test
+    void shortRetrievedTitleNeedsExactCase() {
+        assertEquals(List.of(UP), service.findMovieIds("I'd go with Up, it is lovely.", Set.of(UP)));
+        assertTrue(service.findMovieIds("Look up the showtimes.", Set.of(UP)).isEmpty());
+    }
+
+    @Test
+    void longerRetrievedTitleMatchesInAnyCase() {
+        assertEquals(List.of(HEAT), service.findMovieIds("the heat in that film", Set.of(HEAT)));
+    }
+
+    @Test
+    void singleWordTitleOutsideRetrievedSetNeedsMarks() {
+        assertTrue(service.findMovieIds("The heat was unbearable.", Set.of()).isEmpty());
+        assertTrue(service.findMovieIds("Heat is rising.", Set.of()).isEmpty());
+        assertTrue(service.findMovieIds("Pixar's Up is lovely.", Set.of()).isEmpty());
+        assertEquals(List.of(UP), service.findMovieIds("Pixar's \"Up\" is lovely.", Set.of()));
+    }
+
+    @Test
+    void multiWordTitleOutsideRetrievedSetNeedsExactCase() {
+        assertEquals(List.of(GODFATHER), service.findMovieIds("Have you seen The Godfather?", Set.of()));
+        assertTrue(service.findMovieIds("have you seen the godfather?", Set.of()).isEmpty());
+    }
+}
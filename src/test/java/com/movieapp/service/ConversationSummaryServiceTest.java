@@ -0,0 +1,95 @@
+package com.movieapp.service;
+
+import com.movieapp.entity.ChatConversation;
+import com.movieapp.entity.ChatMessage;
+import com.movieapp.entity.MessageRole;
+import com.movieapp.repository.ChatConversationRepository;
+import com.movieapp.repository.ChatMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConversationSummaryServiceTest {
+
+    private static final long CONVERSATION_ID = 7L;
+    private static final int RECENT_MESSAGES = 10;
+    private static final int TRIGGER_MESSAGES = 6;
+
+    private ChatMessageRepository messageRepository;
+
+    @BeforeEach
+    void setUp() {
+        messageRepository = mock(ChatMessageRepository.class);
+    }
+
+    private ConversationSummaryService service(boolean enabled) {
+        return new ConversationSummaryService(
+                mock(ChatConversationRepository.class),
+                messageRepository,
+                mock(OllamaLLMService.class),
+                mock(AsyncTaskExecutor.class),
+                mock(PlatformTransactionManager.class),
+                enabled, RECENT_MESSAGES, TRIGGER_MESSAGES, 30, 200);
+    }
+
+    private static ChatConversation conversation(Long summarizedThrough) {
+        return ChatConversation.builder()
+                .id(CONVERSATION_ID)
+                .summaryThroughMessageId(summarizedThrough)
+                .build();
+    }
+
+    private static ChatMessage message(long id) {
+        return ChatMessage.builder()
+                .id(id)
+                .role(id % 2 == 1 ? MessageRole.USER : MessageRole.ASSISTANT)
+                .content("message " + id)
+                .build();
+    }
+
+    private static List<Long> ids(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getId).toList();
+    }
+
+    @Test
+    void readsUnsummarizedTailInOneBoundedQueryOldestFirst() {
+        // Newest first, as the repository returns them
+        when(messageRepository.findLatestByConversationAfter(
+                CONVERSATION_ID, 40L, PageRequest.of(0, RECENT_MESSAGES + TRIGGER_MESSAGES)))
+                .thenReturn(List.of(message(44), message(43), message(42), message(41)));
+
+        List<ChatMessage> history = service(true).loadUnsummarizedHistory(conversation(40L));
+
+        assertEquals(List.of(41L, 42L, 43L, 44L), ids(history));
+    }
+
+    @Test
+    void readsFromTheStartBeforeTheFirstSummary() {
+        when(messageRepository.findLatestByConversationAfter(
+                CONVERSATION_ID, 0L, PageRequest.of(0, RECENT_MESSAGES + TRIGGER_MESSAGES)))
+                .thenReturn(List.of(message(2), message(1)));
+
+        List<ChatMessage> history = service(true).loadUnsummarizedHistory(conversation(null));
+
+        assertEquals(List.of(1L, 2L), ids(history));
+    }
+
+    @Test
+    void windowIsRecentMessagesWhenSummariesAreDisabled() {
+        when(messageRepository.findLatestByConversationAfter(
+                CONVERSATION_ID, 0L, PageRequest.of(0, RECENT_MESSAGES)))
+                .thenReturn(List.of(message(30), message(29)));
+
+        List<ChatMessage> history = service(false).loadUnsummarizedHistory(conversation(null));
+
+        assertEquals(List.of(29L, 30L), ids(history));
+    }
+}
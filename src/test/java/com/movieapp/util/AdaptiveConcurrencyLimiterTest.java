@@ -0,0 +1,172 @@
+package com.movieapp.util;
+
+import com.movieapp.exception.DownstreamBusyException;
+import com.movieapp.util.AdaptiveConcurrencyLimiter.Priority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit, int minLimit, int maxLimit,
+                                                      int queueCapacity, long maxWaitMs) {
+        return new AdaptiveConcurrencyLimiter("test", initialLimit, minLimit, maxLimit, queueCapacity, maxWaitMs,
+                2.0, 0.5, new SimpleMeterRegistry());
+    }
+
+    // Runs a call whose latency, as seen by the limiter, is exactly the given value
+    private static void callWithLatency(AdaptiveConcurrencyLimiter limiter, long latencyNanos) {
+        limiter.execute(Priority.INTERACTIVE, "chat", () -> latencyNanos, latency -> latency);
+    }
+
+    // Occupies one slot until the returned latch is released
+    private CountDownLatch holdSlot(AdaptiveConcurrencyLimiter limiter) throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> limiter.execute(Priority.BACKGROUND, "chat", () -> {
+            entered.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        }));
+        assertTrue(entered.await(5, TimeUnit.SECONDS), "slot was not taken");
+        return release;
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not reached in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void limitGrowsWhenSaturatedCallsAreFast() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 4, 10, 1000);
+
+        // At limit 1 every call uses the whole limit: +1/limit per call
+        callWithLatency(limiter, 1_000_000);
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void limitDoesNotGrowWhenUnused() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 4, 10, 1000);
+
+        for (int i = 0; i < 20; i++) {
+            callWithLatency(limiter, 1_000_000);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void limitBacksOffWhenSlowerThanBaseline() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 1, 8, 10, 1000);
+
+        callWithLatency(limiter, 1_000_000);
+        assertEquals(8, limiter.getLimit());
+
+        // Beyond latencyTolerance (2x) of the baseline
+        callWithLatency(limiter, 5_000_000);
+        assertEquals(4, limiter.getLimit());
+
+        callWithLatency(limiter, 5_000_000);
+        callWithLatency(limiter, 5_000_000);
+        callWithLatency(limiter, 5_000_000);
+        assertEquals(1, limiter.getLimit(), "never below min-limit");
+    }
+
+    @Test
+    void baselineIsPerOperation() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 1, 8, 10, 1000);
+
+        limiter.execute(Priority.INTERACTIVE, "embedding", () -> 1_000_000L, latency -> latency);
+        limiter.execute(Priority.INTERACTIVE, "chat", () -> 500_000_000L, latency -> latency);
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void timeoutBacksOff() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 1, 8, 10, 1000);
+
+        assertThrows(SocketTimeoutException.class, () -> limiter.execute(Priority.INTERACTIVE, "chat", () -> {
+            throw new SocketTimeoutException("read timed out");
+        }));
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void interactiveCallsOvertakeQueuedBackgroundCalls() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 1, 10, 5000);
+        CountDownLatch release = holdSlot(limiter);
+        List<Priority> admitted = new CopyOnWriteArrayList<>();
+
+        Future<?> background = executor.submit(() ->
+                limiter.execute(Priority.BACKGROUND, "chat", () -> admitted.add(Priority.BACKGROUND)));
+        awaitCondition(() -> limiter.getQueued(Priority.BACKGROUND) == 1);
+
+        Future<?> interactive = executor.submit(() ->
+                limiter.execute(Priority.INTERACTIVE, "chat", () -> admitted.add(Priority.INTERACTIVE)));
+        awaitCondition(() -> limiter.getQueued(Priority.INTERACTIVE) == 1);
+
+        release.countDown();
+        background.get(5, TimeUnit.SECONDS);
+        interactive.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(Priority.INTERACTIVE, Priority.BACKGROUND), admitted);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 1, 1, 5000);
+        CountDownLatch release = holdSlot(limiter);
+
+        Future<?> queued = executor.submit(() -> limiter.execute(Priority.BACKGROUND, "chat", () -> "done"));
+        awaitCondition(() -> limiter.getQueued(Priority.BACKGROUND) == 1);
+
+        DownstreamBusyException e = assertThrows(DownstreamBusyException.class,
+                () -> limiter.execute(Priority.INTERACTIVE, "chat", () -> "rejected"));
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+
+        release.countDown();
+        assertEquals("done", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rejectsWhenWaitIsTooLong() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 1, 10, 50);
+        CountDownLatch release = holdSlot(limiter);
+
+        assertThrows(DownstreamBusyException.class,
+                () -> limiter.execute(Priority.INTERACTIVE, "chat", () -> "too late"));
+        assertEquals(0, limiter.getQueued(Priority.INTERACTIVE));
+
+        release.countDown();
+        awaitCondition(() -> limiter.getInFlight() == 0);
+    }
+}
@@ -0,0 +1,97 @@
+package com.movieapp.util;
+
+import com.movieapp.util.AhoCorasickMatcher.Match;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AhoCorasickMatcherTest {
+
+    @Test
+    void findsOverlappingTitlesAndKeepsLongestWhenAskedForNonOverlapping() {
+        AhoCorasickMatcher<Integer> matcher = AhoCorasickMatcher.<Integer>builder()
+                .add("The Godfather", 1)
+                .add("The Godfather Part II", 2)
+                .build();
+        String text = "Is The Godfather Part II better than the original?";
+
+        List<Match<Integer>> all = matcher.findAll(text);
+        assertEquals(List.of(new Match<>(3, 16, 1), new Match<>(3, 24, 2)), all);
+
+        assertEquals(List.of(new Match<>(3, 24, 2)), matcher.findNonOverlapping(text));
+    }
+
+    @Test
+    void keepsShorterTitleWhereTheLongerOneIsNotMentioned() {
+        AhoCorasickMatcher<Integer> matcher = AhoCorasickMatcher.<Integer>builder()
+                .add("The Godfather", 1)
+                .add("The Godfather Part II", 2)
+                .build();
+
+        List<Match<Integer>> matches = matcher.findNonOverlapping("The Godfather Part II and The Godfather");
+
+        assertEquals(List.of(2, 1), matches.stream().map(Match::payload).toList());
+    }
+
+    @Test
+    void onlyMatchesWholeWords() {
+        AhoCorasickMatcher<String> matcher = AhoCorasickMatcher.<String>builder()
+                .add("war", "war")
+                .build();
+
+        assertTrue(matcher.findAll("It won an award").isEmpty());
+        assertTrue(matcher.findAll("warning: spoilers").isEmpty());
+        assertTrue(matcher.findAll("postwar Europe").isEmpty());
+        assertEquals(List.of(new Match<>(4, 7, "war")), matcher.findAll("Any War, any era"));
+        assertEquals(List.of(new Match<>(0, 3, "war")), matcher.findAll("war"));
+    }
+
+    @Test
+    void matchesCaseInsensitively() {
+        AhoCorasickMatcher<Integer> matcher = AhoCorasickMatcher.<Integer>builder()
+                .add("Science Fiction", 1)
+                .build();
+
+        assertTrue(matcher.containsAny("some SCIENCE fiction please"));
+    }
+
+    @Test
+    void duplicatePatternsCollectAllPayloadsOnOneSpan() {
+        AhoCorasickMatcher<Long> matcher = AhoCorasickMatcher.<Long>builder()
+                .add("Heat", 4L)
+                .add("heat ", 5L)
+                .build();
+
+        assertEquals(1, matcher.getPatternCount());
+
+        List<Match<Long>> matches = matcher.findNonOverlapping("Watch Heat tonight");
+        assertEquals(List.of(new Match<>(6, 10, 4L), new Match<>(6, 10, 5L)), matches);
+    }
+
+    @Test
+    void reportsPatternsEndingInsideLongerOnes() {
+        // "b c" is only reachable through the failure link of "a b c d"
+        AhoCorasickMatcher<String> matcher = AhoCorasickMatcher.<String>builder()
+                .add("a b c d", "long")
+                .add("b c", "suffix")
+                .build();
+
+        List<Match<String>> matches = matcher.findAll("a b c x");
+
+        assertEquals(List.of(new Match<>(2, 5, "suffix")), matches);
+    }
+
+    @Test
+    void ignoresBlankPatternsAndEmptyText() {
+        AhoCorasickMatcher<Integer> matcher = AhoCorasickMatcher.<Integer>builder()
+                .add("  ", 1)
+                .add(null, 2)
+                .build();
+
+        assertEquals(0, matcher.getPatternCount());
+        assertTrue(matcher.findAll("anything").isEmpty());
+        assertTrue(matcher.findAll(null).isEmpty());
+    }
+}
@@ -0,0 +1,136 @@
+package com.movieapp.util;
+
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddingJsonParserTest {
+
+    private static List<float[]> parse(String json, int expectedDimension) throws IOException {
+        return EmbeddingJsonParser.parse(new Buffer().writeUtf8(json), expectedDimension);
+    }
+
+    private static float parseSingle(String number) throws IOException {
+        return parse("{\"embedding\":[" + number + "]}", 1).get(0)[0];
+    }
+
+    // The parser promises to be within one float ulp of Float.parseFloat
+    private static void assertMatchesParseFloat(String number) throws IOException {
+        float expected = Float.parseFloat(number);
+        float actual = parseSingle(number);
+        assertTrue(Math.abs(actual - expected) <= Math.ulp(expected),
+                number + ": expected " + expected + " but was " + actual);
+    }
+
+    @Test
+    void parsesSingleEmbedding() throws IOException {
+        List<float[]> embeddings = parse("{\"embedding\": [0.5, -1.25, 3]}", 3);
+
+        assertEquals(1, embeddings.size());
+        assertArrayEquals(new float[]{0.5f, -1.25f, 3f}, embeddings.get(0));
+    }
+
+    @Test
+    void parsesBatchShape() throws IOException {
+        List<float[]> embeddings = parse(
+                "{\"model\":\"nomic-embed-text\",\"embeddings\":[[0.1,0.2],[-0.3,0.4]],\"total_duration\":12345}", 2);
+
+        assertEquals(2, embeddings.size());
+        assertArrayEquals(new float[]{0.1f, 0.2f}, embeddings.get(0));
+        assertArrayEquals(new float[]{-0.3f, 0.4f}, embeddings.get(1));
+    }
+
+    @Test
+    void vectorsOfAnotherSizeStillParse() throws IOException {
+        assertArrayEquals(new float[]{1f, 2f, 3f}, parse("{\"embedding\":[1,2,3]}", 2).get(0));
+        assertArrayEquals(new float[]{1f}, parse("{\"embedding\":[1]}", 768).get(0));
+        assertArrayEquals(new float[0], parse("{\"embedding\":[]}", 768).get(0));
+    }
+
+    @Test
+    void emptyResponseHasNoEmbeddings() throws IOException {
+        assertTrue(parse("{}", 4).isEmpty());
+        assertTrue(parse("{\"embeddings\": []}", 4).isEmpty());
+    }
+
+    @Test
+    void skipsNestedAndUnknownFields() throws IOException {
+        String json = "{\n"
+                + "  \"model\": \"nomic-embed-text\",\n"
+                + "  \"options\": {\"nested\": [1, {\"deep\": \"]}\\\"\"}], \"flag\": true},\n"
+                + "  \"load_duration\": 1.5e3,\n"
+                + "  \"done\": false,\n"
+                + "  \"context\": null,\n"
+                + "  \"embedding\": [ 0.25 , -0.75 ]\n"
+                + "}";
+
+        List<float[]> embeddings = parse(json, 2);
+
+        assertEquals(1, embeddings.size());
+        assertArrayEquals(new float[]{0.25f, -0.75f}, embeddings.get(0));
+    }
+
+    @Test
+    void errorFieldIsReported() {
+        IOException e = assertThrows(IOException.class,
+                () -> parse("{\"error\":\"model \\\"nomic\\\" not found\"}", 768));
+
+        assertEquals("Ollama embedding error: model \"nomic\" not found", e.getMessage());
+    }
+
+    @Test
+    void malformedOrTruncatedResponseFails() {
+        assertThrows(IOException.class, () -> parse("[0.1, 0.2]", 2));
+        assertThrows(IOException.class, () -> parse("{\"embedding\":[0.1,", 2));
+        assertThrows(IOException.class, () -> parse("{\"embedding\":[0.1 0.2]}", 2));
+        assertThrows(IOException.class, () -> parse("{\"embedding\":[abc]}", 2));
+    }
+
+    @Test
+    void exponents() throws IOException {
+        for (String number : List.of("1e3", "1E3", "1.5e-7", "-2.5E+3", "7e0", "-4.2e-12",
+                "3.4e38", "1.17549435e-38", "1e-45", "6.02214076e23")) {
+            assertMatchesParseFloat(number);
+        }
+    }
+
+    @Test
+    void leadingZeros() throws IOException {
+        for (String number : List.of("0", "0.0", "0.5", "0.000123", "-0.00000000071", "0.0000000000000000000000012345")) {
+            assertMatchesParseFloat(number);
+        }
+    }
+
+    @Test
+    void moreThanEighteenSignificantDigits() throws IOException {
+        for (String number : List.of("0.12345678901234567890123", "-1.00000000000000000000001",
+                "123456789012345678901234", "98765432109876543210.5", "0.000999999999999999999999")) {
+            assertMatchesParseFloat(number);
+        }
+    }
+
+    @Test
+    void negativeZero() throws IOException {
+        assertEquals(-0.0f, parseSingle("-0"));
+        assertEquals(-0.0f, parseSingle("-0.0"));
+        assertEquals(-0.0f, parseSingle("-0.0e5"));
+        assertEquals(0.0f, parseSingle("0.0"));
+    }
+
+    @Test
+    void randomEmbeddingValues() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            double value = random.nextGaussian() * Math.pow(10, random.nextInt(12) - 8);
+            assertMatchesParseFloat(Float.toString((float) value));
+            assertMatchesParseFloat(Double.toString(value));
+            assertMatchesParseFloat(String.format(Locale.ROOT, "%.17e", value));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.movieapp.util;
+
+import com.movieapp.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmBudgetLimiterTest {
+
+    private static final String KEY = "user:1";
+    private static final int PROMPT_BUDGET = 3000;
+    private static final int COMPLETION_ESTIMATE = 400;
+    private static final long ESTIMATE = PROMPT_BUDGET + COMPLETION_ESTIMATE;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    // Refill of one token per minute keeps balances exact for the duration of a test
+    private LlmBudgetLimiter limiter(long capacity) {
+        return new LlmBudgetLimiter(meterRegistry, true, capacity, 1, PROMPT_BUDGET, COMPLETION_ESTIMATE);
+    }
+
+    @Test
+    void reserveHoldsTheEstimate() {
+        LlmBudgetLimiter limiter = limiter(10_000);
+
+        LlmBudgetLimiter.Reservation reservation = limiter.reserve(KEY);
+
+        assertEquals(ESTIMATE, reservation.getReserved());
+        assertEquals(10_000 - ESTIMATE, reservation.getRemaining());
+        assertEquals(10_000 - ESTIMATE, limiter.getAvailableTokens(KEY));
+    }
+
+    @Test
+    void settleRefundsTokensBelowTheEstimate() {
+        LlmBudgetLimiter limiter = limiter(10_000);
+        LlmBudgetLimiter.Reservation reservation = limiter.reserve(KEY);
+
+        reservation.charge(1_000);
+        reservation.charge(500);
+        reservation.settle();
+
+        assertEquals(10_000 - 1_500, limiter.getAvailableTokens(KEY));
+        assertEquals(1_500.0, meterRegistry.get("chat.llm.budget.charged").summary().totalAmount());
+    }
+
+    @Test
+    void settleRefundsEverythingWhenNothingWasCharged() {
+        LlmBudgetLimiter limiter = limiter(10_000);
+
+        limiter.reserve(KEY).settle();
+
+        assertEquals(10_000, limiter.getAvailableTokens(KEY));
+    }
+
+    @Test
+    void settleChargesTokensAboveTheEstimate() {
+        LlmBudgetLimiter limiter = limiter(10_000);
+        LlmBudgetLimiter.Reservation reservation = limiter.reserve(KEY);
+
+        reservation.charge(5_000);
+        reservation.settle();
+
+        assertEquals(5_000, limiter.getAvailableTokens(KEY));
+    }
+
+    @Test
+    void overrunCanTakeTheBudgetNegative() {
+        LlmBudgetLimiter limiter = limiter(4_000);
+        LlmBudgetLimiter.Reservation reservation = limiter.reserve(KEY);
+
+        reservation.charge(10_000);
+        reservation.settle();
+
+        assertEquals(-6_000, reservation.getRemaining());
+        assertThrows(RateLimitExceededException.class, () -> limiter.reserve(KEY));
+    }
+
+    @Test
+    void settleIsIdempotent() {
+        LlmBudgetLimiter limiter = limiter(10_000);
+        LlmBudgetLimiter.Reservation reservation = limiter.reserve(KEY);
+
+        reservation.charge(1_000);
+        reservation.settle();
+        reservation.settle();
+
+        assertEquals(9_000, limiter.getAvailableTokens(KEY));
+        assertEquals(1, meterRegistry.get("chat.llm.budget.charged").summary().count());
+    }
+
+    @Test
+    void negativeChargesAreIgnored() {
+        LlmBudgetLimiter limiter = limiter(10_000);
+        LlmBudgetLimiter.Reservation reservation = limiter.reserve(KEY);
+
+        reservation.charge(2_000);
+        reservation.charge(-500);
+        reservation.settle();
+
+        assertEquals(8_000, limiter.getAvailableTokens(KEY));
+    }
+
+    @Test
+    void rejectsWhenTheEstimateNoLongerFits() {
+        LlmBudgetLimiter limiter = limiter(5_000);
+        limiter.reserve(KEY);
+
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class, () -> limiter.reserve(KEY));
+
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+        assertEquals(1.0, meterRegistry.get("chat.llm.budget.rejections").counter().count());
+        assertEquals(5_000 - ESTIMATE, limiter.getAvailableTokens(KEY), "a rejected reservation takes nothing");
+    }
+
+    @Test
+    void estimateIsCappedAtCapacity() {
+        LlmBudgetLimiter limiter = limiter(1_000);
+
+        assertEquals(1_000, limiter.reserve(KEY).getReserved());
+    }
+
+    @Test
+    void usersHaveSeparateBudgets() {
+        LlmBudgetLimiter limiter = limiter(5_000);
+        limiter.reserve(KEY);
+
+        assertDoesNotThrow(() -> limiter.reserve("user:2"));
+        assertEquals(5_000 - ESTIMATE, limiter.getAvailableTokens("user:2"));
+        assertEquals(5_000, limiter.getAvailableTokens("user:3"));
+    }
+
+    @Test
+    void resetRestoresTheFullBudget() {
+        LlmBudgetLimiter limiter = limiter(5_000);
+        limiter.reserve(KEY);
+
+        limiter.resetLimit(KEY);
+
+        assertEquals(5_000, limiter.getAvailableTokens(KEY));
+        assertDoesNotThrow(() -> limiter.reserve(KEY));
+    }
+
+    @Test
+    void disabledLimiterReservesNothing() {
+        LlmBudgetLimiter limiter = new LlmBudgetLimiter(meterRegistry, false, 5_000, 1, PROMPT_BUDGET, COMPLETION_ESTIMATE);
+
+        for (int i = 0; i < 10; i++) {
+            LlmBudgetLimiter.Reservation reservation = limiter.reserve(KEY);
+            reservation.charge(100_000);
+            reservation.settle();
+            assertEquals(0, reservation.getReserved());
+        }
+        assertEquals(5_000, limiter.getAvailableTokens(KEY));
+    }
+}